@@ -0,0 +1,13 @@
+package com.example.cache.config;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+/**
+ * Cargador que usa Caffeine para refrescar en segundo plano las entradas de una caché
+ * cuando tiene configurado refresh-after-write.
+ * Cada bean que implemente esta interfaz se asocia a la caché con el nombre que devuelve {@link #cacheName()}.
+ */
+public interface CacheRefreshLoader extends CacheLoader<Object, Object> {
+
+    String cacheName();
+}
@@ -0,0 +1,94 @@
+package com.example.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de las cachés de la aplicación leída de application.properties.
+ * Cada caché (funkos, categories, orders...) puede tener su propia política,
+ * si no se indica nada se usa la política por defecto.
+ *
+ * <pre>
+ * cache.defaults.maximum-size=1000
+ * cache.specs.funkos.maximum-size=10000
+ * cache.specs.funkos.expire-after-write=10m
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheSpecProperties {
+    // Si se registran estadísticas (hit ratio, evicciones, tiempo de carga)
+    private boolean recordStats = true;
+    // Política que se aplica a las cachés sin configuración propia
+    private Spec defaults = new Spec();
+    // Políticas por nombre de caché
+    private Map<String, Spec> specs = new HashMap<>();
+    // Caché compartida entre nodos (L2)
+    private L2 l2 = new L2();
+    // Precarga de las cachés al arrancar
+    private WarmUp warmup = new WarmUp();
+    // Caché de búsquedas sin resultado
+    private Negative negative = new Negative();
+
+    /**
+     * Devuelve la política de una caché o la política por defecto si no tiene una propia.
+     *
+     * @param cacheName El nombre de la caché.
+     * @return La política que se debe aplicar.
+     */
+    public Spec specFor(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Spec {
+        // Número máximo de entradas (excluyente con maximumWeight)
+        private Long maximumSize;
+        // Peso máximo de la caché (excluyente con maximumSize)
+        private Long maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        // Solo se aplica si la caché tiene un CacheRefreshLoader registrado y no usa la caché L2
+        private Duration refreshAfterWrite;
+    }
+
+    @Data
+    public static class L2 {
+        // Si está desactivada cada nodo solo usa su caché local
+        private boolean enabled = false;
+        private String clusterName = "funkos-cache";
+        // Miembros del cluster de Hazelcast (host o host:puerto)
+        private List<String> members = new ArrayList<>(List.of("127.0.0.1"));
+        private int port = 5701;
+    }
+
+    @Data
+    public static class WarmUp {
+        private boolean enabled = true;
+        // Cachés de las que se guardan las claves más usadas
+        private List<String> caches = new ArrayList<>(List.of("funkos", "categories"));
+        // Fichero donde se guardan las claves más usadas al parar la aplicación
+        private String file = "cache-warmup.json";
+        // Número de claves más usadas que se guardan por caché
+        private int topK = 200;
+        // Claves fijas que se precargan siempre, por nombre de caché
+        private Map<String, List<String>> keys = new HashMap<>();
+        private int batchSize = 25;
+        private int parallelism = 4;
+        // Tiempo máximo de la precarga, después la instancia se marca lista igualmente
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Negative {
+        private long maximumSize = 10_000;
+        // Corto para que una entidad creada en otro nodo se vea enseguida
+        private Duration timeToLive = Duration.ofSeconds(30);
+    }
+}
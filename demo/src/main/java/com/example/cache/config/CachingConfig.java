@@ -0,0 +1,173 @@
+package com.example.cache.config;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.cache.singleflight.SingleFlightCache;
+import com.example.cache.snapshot.CacheSnapshotConverter;
+import com.example.cache.snapshot.SnapshotCache;
+import com.example.cache.support.CacheDecorator;
+import com.example.cache.support.DecoratingCacheManager;
+import com.example.funko.category.dto.snapshot.CategorySnapshot;
+import com.example.funko.category.mapper.CategoryMapper;
+import com.example.funko.category.model.Category;
+import com.example.funko.funko.dto.snapshot.FunkoSnapshot;
+import com.example.funko.funko.mapper.FunkoMapper;
+import com.example.funko.funko.model.Funko;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Configura el CacheManager de la aplicación con Caffeine.
+ * Sustituye al ConcurrentMapCacheManager por defecto, que no tiene límite de tamaño ni caducidad,
+ * por cachés acotadas con una política propia para cada una (funkos, categories, orders).
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(CacheSpecProperties.class)
+public class CachingConfig {
+
+    // Cachés que se crean al arrancar aunque no tengan política propia
+    public static final Set<String> CACHE_NAMES = Set.of("funkos", "categories", "orders");
+
+    // Orden de los decoradores: el de mayor orden queda más externo
+    public static final int SINGLE_FLIGHT_ORDER = 70;
+    public static final int SNAPSHOT_ORDER = 100;
+
+    @Bean
+    public CacheManager cacheManager(
+            CacheSpecProperties properties,
+            ObjectProvider<CacheRefreshLoader> refreshLoaders,
+            ObjectProvider<CacheDecorator> decorators
+    ) {
+        return new DecoratingCacheManager(
+                caffeineCacheManager(properties, refreshLoaders),
+                decorators.orderedStream().toList()
+        );
+    }
+
+    /**
+     * Guarda en las cachés de funkos y categorías instantáneas inmutables en lugar de entidades JPA.
+     */
+    @Bean
+    public CacheDecorator snapshotCacheDecorator() {
+        Map<String, CacheSnapshotConverter<?, ?>> converters = Map.of(
+                "funkos", CacheSnapshotConverter.of(Funko.class, FunkoSnapshot.class, FunkoMapper::toSnapshot, FunkoMapper::fromSnapshot),
+                "categories", CacheSnapshotConverter.of(Category.class, CategorySnapshot.class, CategoryMapper::toSnapshot, CategoryMapper::fromSnapshot)
+        );
+        return CacheDecorator.of(SNAPSHOT_ORDER, cache -> {
+            CacheSnapshotConverter<?, ?> converter = converters.get(cache.getName());
+            return converter == null ? cache : new SnapshotCache<>(cache, converter);
+        });
+    }
+
+    /**
+     * Registra las métricas de las cargas coalescidas (@Cacheable(sync = true)) de cada caché.
+     */
+    @Bean
+    public CacheDecorator singleFlightCacheDecorator(ObjectProvider<MeterRegistry> meterRegistry) {
+        return CacheDecorator.of(SINGLE_FLIGHT_ORDER, cache ->
+                new SingleFlightCache(cache, meterRegistry.getIfAvailable(SimpleMeterRegistry::new)));
+    }
+
+    @Bean
+    public NegativeLookupCache negativeLookupCache(CacheSpecProperties properties) {
+        CacheSpecProperties.Negative negative = properties.getNegative();
+        return new NegativeLookupCache(negative.getMaximumSize(), negative.getTimeToLive());
+    }
+
+    private CaffeineCacheManager caffeineCacheManager(
+            CacheSpecProperties properties,
+            ObjectProvider<CacheRefreshLoader> refreshLoaders
+    ) {
+        Map<String, CacheRefreshLoader> loaders = refreshLoaders.orderedStream()
+                .collect(Collectors.toMap(CacheRefreshLoader::cacheName, loader -> loader));
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Las cachés que se pidan sin estar configuradas usan la política por defecto
+        cacheManager.setCaffeine(caffeineFor("default", properties.getDefaults(), properties.isRecordStats(), null, false));
+
+        Set<String> names = new HashSet<>(CACHE_NAMES);
+        names.addAll(properties.getSpecs().keySet());
+        for (String name : names) {
+            CacheRefreshLoader loader = loaders.get(name);
+            Caffeine<Object, Object> caffeine = caffeineFor(
+                    name, properties.specFor(name), properties.isRecordStats(), loader, properties.getL2().isEnabled());
+            Cache<Object, Object> cache = loader != null ? caffeine.build(loader) : caffeine.build();
+            cacheManager.registerCustomCache(name, cache);
+            log.info("Caché {} configurada con la política {}", name, properties.specFor(name));
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Construye el builder de Caffeine para una caché a partir de su política.
+     *
+     * @param name El nombre de la caché, solo para los mensajes de log.
+     * @param spec La política de la caché.
+     * @param recordStats Si se registran estadísticas.
+     * @param loader El cargador para refrescar entradas, puede ser null.
+     * @param twoLevel Si la caché tiene detrás la caché compartida (L2).
+     * @return El builder de Caffeine configurado.
+     */
+    static Caffeine<Object, Object> caffeineFor(
+            String name,
+            CacheSpecProperties.Spec spec,
+            boolean recordStats,
+            CacheRefreshLoader loader,
+            boolean twoLevel
+    ) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder();
+        if (spec.getMaximumSize() != null && spec.getMaximumWeight() != null) {
+            throw new IllegalStateException("La caché " + name + " no puede tener maximum-size y maximum-weight a la vez");
+        }
+        if (spec.getMaximumSize() != null) {
+            caffeine.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getMaximumWeight() != null) {
+            caffeine.maximumWeight(spec.getMaximumWeight()).weigher(entryWeigher());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            caffeine.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            caffeine.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            if (loader == null) {
+                log.warn("La caché {} tiene refresh-after-write pero no tiene un CacheRefreshLoader, se ignora", name);
+            } else if (twoLevel) {
+                // El refresco solo recargaría L1: L2 y el resto de nodos seguirían sirviendo el valor anterior
+                log.warn("La caché {} tiene refresh-after-write pero usa la caché L2, se ignora", name);
+            } else {
+                caffeine.refreshAfterWrite(spec.getRefreshAfterWrite());
+            }
+        }
+        if (recordStats) {
+            caffeine.recordStats();
+        }
+        return caffeine;
+    }
+
+    /**
+     * Peso aproximado de una entrada: las colecciones pesan tanto como elementos tienen,
+     * el resto de valores pesan 1.
+     */
+    private static Weigher<Object, Object> entryWeigher() {
+        return (key, value) -> value instanceof Collection<?> collection ? Math.max(1, collection.size()) : 1;
+    }
+}
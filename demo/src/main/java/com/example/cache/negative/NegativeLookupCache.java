@@ -0,0 +1,49 @@
+package com.example.cache.negative;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Recuerda durante poco tiempo las búsquedas que no han encontrado nada (ids o nombres que no existen),
+ * para que las peticiones repetidas de un cliente roto no vayan cada vez a la base de datos.
+ * Cuando se crea una entidad con una de esas claves hay que llamar a {@link #forget(String, Object)}.
+ */
+public class NegativeLookupCache {
+
+    private record Key(String lookup, Object key) {
+    }
+
+    private final Cache<Key, Boolean> misses;
+
+    /**
+     * @param maximumSize Número máximo de fallos que se recuerdan.
+     * @param timeToLive Tiempo que se recuerda cada fallo.
+     */
+    public NegativeLookupCache(long maximumSize, Duration timeToLive) {
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    /**
+     * Indica si una búsqueda ya ha fallado hace poco.
+     *
+     * @param lookup El tipo de búsqueda, por ejemplo "funkos" o "categories.name".
+     * @param key La clave buscada.
+     * @return true si se sabe que la clave no existe.
+     */
+    public boolean isKnownMiss(String lookup, Object key) {
+        return key != null && misses.getIfPresent(new Key(lookup, key)) != null;
+    }
+
+    public void recordMiss(String lookup, Object key) {
+        if (key != null) misses.put(new Key(lookup, key), Boolean.TRUE);
+    }
+
+    public void forget(String lookup, Object key) {
+        if (key != null) misses.invalidate(new Key(lookup, key));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.cache.singleflight;
+
+import com.example.cache.support.ForwardingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mide la coalescencia de cargas en las cachés usadas con @Cacheable(sync = true).
+ * <p>
+ * Caffeine ya garantiza que solo hay una carga en curso por clave: el resto de peticiones que fallan
+ * a la vez esperan a esa carga en lugar de ir a la base de datos. Este decorador cuenta cuántas peticiones
+ * han esperado a la carga de otra y cuánto han esperado. La cuenta es aproximada: una petición que llega
+ * justo antes de que empiece la carga no se cuenta como espera.
+ */
+public class SingleFlightCache extends ForwardingCache {
+
+    private final ConcurrentMap<Object, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final Counter loads;
+    private final Counter coalescedWaits;
+    private final Timer coalescedWaitTime;
+
+    public SingleFlightCache(Cache delegate, MeterRegistry registry) {
+        super(delegate);
+        this.loads = Counter.builder("cache.singleflight.loads")
+                .description("Cargas realizadas al fallar la caché")
+                .tag("cache", delegate.getName())
+                .register(registry);
+        this.coalescedWaits = Counter.builder("cache.singleflight.coalesced")
+                .description("Peticiones que han esperado a la carga en curso de otra petición")
+                .tag("cache", delegate.getName())
+                .register(registry);
+        this.coalescedWaitTime = Timer.builder("cache.singleflight.wait")
+                .description("Tiempo esperando a la carga en curso de otra petición")
+                .tag("cache", delegate.getName())
+                .register(registry);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean loadInFlight = inFlight.containsKey(key);
+        long start = System.nanoTime();
+        AtomicBoolean loadedHere = new AtomicBoolean(false);
+        T value = delegate.get(key, () -> {
+            loadedHere.set(true);
+            inFlight.put(key, Boolean.TRUE);
+            loads.increment();
+            try {
+                return valueLoader.call();
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+        if (loadInFlight && !loadedHere.get()) {
+            coalescedWaits.increment();
+            coalescedWaitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cache.snapshot;
+
+import java.util.function.Function;
+
+/**
+ * Convierte las entidades que devuelven los servicios en instantáneas inmutables para guardarlas en caché,
+ * y reconstruye una entidad nueva a partir de la instantánea cuando se lee de la caché.
+ *
+ * @param <E> El tipo de la entidad.
+ * @param <S> El tipo de la instantánea.
+ */
+public interface CacheSnapshotConverter<E, S> {
+
+    Class<E> entityType();
+
+    Class<S> snapshotType();
+
+    S toSnapshot(E entity);
+
+    E fromSnapshot(S snapshot);
+
+    static <E, S> CacheSnapshotConverter<E, S> of(
+            Class<E> entityType,
+            Class<S> snapshotType,
+            Function<E, S> toSnapshot,
+            Function<S, E> fromSnapshot
+    ) {
+        return new CacheSnapshotConverter<>() {
+            @Override
+            public Class<E> entityType() {
+                return entityType;
+            }
+
+            @Override
+            public Class<S> snapshotType() {
+                return snapshotType;
+            }
+
+            @Override
+            public S toSnapshot(E entity) {
+                return toSnapshot.apply(entity);
+            }
+
+            @Override
+            public E fromSnapshot(S snapshot) {
+                return fromSnapshot.apply(snapshot);
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cache.snapshot;
+
+import com.example.cache.support.ForwardingCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caché que guarda instantáneas inmutables en lugar de las entidades JPA.
+ * Al escribir convierte la entidad en su instantánea y al leer devuelve una entidad nueva y separada
+ * de cualquier contexto de persistencia, de modo que cada hilo trabaja con su propia copia.
+ *
+ * @param <E> El tipo de la entidad.
+ * @param <S> El tipo de la instantánea.
+ */
+public class SnapshotCache<E, S> extends ForwardingCache {
+
+    private final CacheSnapshotConverter<E, S> converter;
+
+    public SnapshotCache(Cache delegate, CacheSnapshotConverter<E, S> converter) {
+        super(delegate);
+        this.converter = converter;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        return wrapper == null ? null : new SimpleValueWrapper(fromStored(wrapper.get()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = fromStored(delegate.get(key, Object.class));
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("El valor en caché no es del tipo " + type.getName() + ": " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStored(delegate.get(key, () -> toStored(valueLoader.call())));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, toStored(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, toStored(value));
+        return existing == null ? null : new SimpleValueWrapper(fromStored(existing.get()));
+    }
+
+    private Object toStored(Object value) {
+        if (converter.entityType().isInstance(value)) {
+            return converter.toSnapshot(converter.entityType().cast(value));
+        }
+        return value;
+    }
+
+    private Object fromStored(Object value) {
+        if (converter.snapshotType().isInstance(value)) {
+            return converter.fromSnapshot(converter.snapshotType().cast(value));
+        }
+        return value;
+    }
+}
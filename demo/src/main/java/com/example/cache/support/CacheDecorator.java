@@ -0,0 +1,30 @@
+package com.example.cache.support;
+
+import org.springframework.cache.Cache;
+import org.springframework.core.Ordered;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Decorador que se aplica a las cachés del CacheManager.
+ * Los decoradores se aplican de menor a mayor orden, por lo que el de mayor orden queda más externo.
+ * Un decorador que no quiera tocar una caché la devuelve tal cual.
+ */
+public interface CacheDecorator extends Ordered {
+
+    Cache decorate(Cache cache);
+
+    static CacheDecorator of(int order, UnaryOperator<Cache> decorator) {
+        return new CacheDecorator() {
+            @Override
+            public Cache decorate(Cache cache) {
+                return decorator.apply(cache);
+            }
+
+            @Override
+            public int getOrder() {
+                return order;
+            }
+        };
+    }
+}
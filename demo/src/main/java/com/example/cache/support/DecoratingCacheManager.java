@@ -0,0 +1,49 @@
+package com.example.cache.support;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.OrderComparator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager que aplica una cadena de {@link CacheDecorator} sobre las cachés de otro CacheManager.
+ * Cada caché se decora una única vez y se reutiliza en las siguientes peticiones.
+ */
+public class DecoratingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final List<CacheDecorator> decorators;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public DecoratingCacheManager(CacheManager delegate, List<CacheDecorator> decorators) {
+        this.delegate = delegate;
+        this.decorators = new ArrayList<>(decorators);
+        OrderComparator.sort(this.decorators);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache cache = delegate.getCache(cacheName);
+            if (cache == null) return null;
+            for (CacheDecorator decorator : decorators) {
+                cache = decorator.decorate(cache);
+            }
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+}
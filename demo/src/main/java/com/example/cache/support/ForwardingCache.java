@@ -0,0 +1,91 @@
+package com.example.cache.support;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caché que delega todas las operaciones en otra caché.
+ * Sirve de base para los decoradores de caché, que solo sobrescriben las operaciones que les interesan.
+ */
+public abstract class ForwardingCache implements Cache {
+
+    protected final Cache delegate;
+
+    protected ForwardingCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Devuelve la caché más interna de una cadena de decoradores.
+     *
+     * @param cache La caché, decorada o no.
+     * @return La caché real que hay debajo de todos los decoradores.
+     */
+    public static Cache unwrap(Cache cache) {
+        Cache current = cache;
+        while (current instanceof ForwardingCache forwarding) {
+            current = forwarding.delegate;
+        }
+        return current;
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.cache.support;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registra las métricas de las cachés decoradas.
+ * Actuator solo sabe publicar las métricas de una CaffeineCache, así que se busca la caché real bajo los decoradores.
+ */
+@Component
+public class ForwardingCacheMeterBinderProvider implements CacheMeterBinderProvider<ForwardingCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(ForwardingCache cache, Iterable<Tag> tags) {
+        Cache target = ForwardingCache.unwrap(cache);
+        if (target instanceof CaffeineCache caffeineCache) {
+            return new CaffeineCacheMetrics<>(caffeineCache.getNativeCache(), cache.getName(), tags);
+        }
+        return null;
+    }
+}
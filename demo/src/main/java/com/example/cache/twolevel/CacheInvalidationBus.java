@@ -0,0 +1,59 @@
+package com.example.cache.twolevel;
+
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publica y recibe los mensajes de invalidación de las cachés de dos niveles a través de un topic de Hazelcast.
+ * Cuando llega un mensaje de otro nodo se borra la entrada de la caché local (L1),
+ * la siguiente lectura la trae actualizada de la caché compartida (L2).
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener<CacheInvalidationMessage> {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ITopic<CacheInvalidationMessage> topic;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(ITopic<CacheInvalidationMessage> topic) {
+        this.topic = topic;
+        topic.addMessageListener(this);
+    }
+
+    void register(TwoLevelCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void publishEvict(String cacheName, Object key) {
+        topic.publish(new CacheInvalidationMessage(nodeId, cacheName, key, System.currentTimeMillis()));
+    }
+
+    void publishClear(String cacheName) {
+        topic.publish(new CacheInvalidationMessage(nodeId, cacheName, null, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void onMessage(Message<CacheInvalidationMessage> message) {
+        CacheInvalidationMessage invalidation = message.getMessageObject();
+        if (nodeId.equals(invalidation.origin())) return; // Los cambios propios ya están aplicados
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) return;
+        log.debug("Invalidación de la caché {} con clave {} recibida en {} ms",
+                invalidation.cacheName(), invalidation.key(), System.currentTimeMillis() - invalidation.publishedAt());
+        if (invalidation.key() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.cache.twolevel;
+
+import java.io.Serializable;
+
+/**
+ * Mensaje que se envía al resto de nodos cuando una entrada de caché cambia.
+ * Si la clave es null se invalida la caché entera.
+ *
+ * @param origin      El identificador del nodo que publica el mensaje, para ignorar los propios.
+ * @param cacheName   El nombre de la caché afectada.
+ * @param key         La clave afectada, o null para toda la caché.
+ * @param publishedAt Momento de publicación en milisegundos, para medir la latencia.
+ */
+public record CacheInvalidationMessage(
+        String origin,
+        String cacheName,
+        Object key,
+        long publishedAt
+) implements Serializable {
+}
@@ -0,0 +1,179 @@
+package com.example.cache.twolevel;
+
+import com.example.cache.support.ForwardingCache;
+import com.hazelcast.map.IMap;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de dos niveles: una caché local de Caffeine (L1) delante de un mapa compartido de Hazelcast (L2).
+ * Las lecturas buscan primero en L1, después en L2 y por último cargan el valor.
+ * Las escrituras y borrados se aplican en los dos niveles y se avisa al resto de nodos
+ * para que descarten su copia local.
+ * <p>
+ * Una lectura de L2 que empezó antes de una invalidación de otro nodo no debe dejar el valor antiguo en L1:
+ * cada invalidación recibida incrementa una generación y el valor leído de L2 solo se queda en L1
+ * si la generación no ha cambiado mientras tanto.
+ */
+public class TwoLevelCache extends ForwardingCache {
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final IMap<Object, Object> shared;
+    private final CacheInvalidationBus bus;
+    private final Duration timeToLive;
+    // Invalidaciones recibidas de otros nodos
+    private final AtomicLong generation = new AtomicLong();
+
+    public TwoLevelCache(
+            CaffeineCache local,
+            IMap<Object, Object> shared,
+            CacheInvalidationBus bus,
+            Duration timeToLive
+    ) {
+        super(local);
+        this.local = local.getNativeCache();
+        this.shared = shared;
+        this.bus = bus;
+        this.timeToLive = timeToLive;
+        bus.register(this);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = local.getIfPresent(key);
+        if (stored == null) {
+            long readGeneration = generation.get();
+            stored = shared.get(key);
+            if (stored != null) fillLocal(key, stored, readGeneration);
+        }
+        return stored == null ? null : new SimpleValueWrapper(fromStoreValue(stored));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("El valor en caché no es del tipo " + type.getName() + ": " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine no deja borrar la clave mientras se calcula, la invalidación espera y borra el valor después
+        Object stored = local.get(key, k -> {
+            Object sharedValue = shared.get(k);
+            if (sharedValue != null) return sharedValue;
+            Object loaded;
+            try {
+                loaded = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+            putShared(k, loaded);
+            return loaded;
+        });
+        return (T) fromStoreValue(stored);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        local.put(key, stored);
+        putShared(key, stored);
+        bus.publishEvict(getName(), key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        long readGeneration = generation.get();
+        Object existing = timeToLive != null
+                ? shared.putIfAbsent(key, stored, timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+                : shared.putIfAbsent(key, stored);
+        if (existing != null) {
+            fillLocal(key, existing, readGeneration);
+            return new SimpleValueWrapper(fromStoreValue(existing));
+        }
+        local.put(key, stored);
+        bus.publishEvict(getName(), key);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        shared.delete(key);
+        bus.publishEvict(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean presentLocally = local.asMap().remove(key) != null;
+        boolean presentShared = shared.remove(key) != null;
+        bus.publishEvict(getName(), key);
+        return presentLocally || presentShared;
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        shared.clear();
+        bus.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = local.estimatedSize() > 0 || !shared.isEmpty();
+        clear();
+        return notEmpty;
+    }
+
+    /**
+     * Borra una entrada solo de la caché local, cuando otro nodo avisa de que ha cambiado.
+     */
+    void evictLocal(Object key) {
+        generation.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    /**
+     * Vacía solo la caché local, cuando otro nodo avisa de que ha vaciado la caché.
+     */
+    void clearLocal() {
+        generation.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    // Guarda en L1 un valor leído de L2; si ha llegado una invalidación durante la lectura se descarta,
+    // la siguiente lectura lo volverá a traer de L2
+    private void fillLocal(Object key, Object stored, long readGeneration) {
+        local.put(key, stored);
+        if (generation.get() != readGeneration) local.invalidate(key);
+    }
+
+    private void putShared(Object key, Object stored) {
+        if (timeToLive != null) {
+            shared.set(key, stored, timeToLive.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            shared.set(key, stored);
+        }
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static Object fromStoreValue(Object stored) {
+        return stored == NullValue.INSTANCE || stored instanceof NullValue ? null : stored;
+    }
+}
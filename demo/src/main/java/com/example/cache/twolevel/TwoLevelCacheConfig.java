@@ -0,0 +1,68 @@
+package com.example.cache.twolevel;
+
+import com.example.cache.config.CacheSpecProperties;
+import com.example.cache.support.CacheDecorator;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.NetworkConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa la caché de dos niveles cuando cache.l2.enabled=true.
+ * Cada nodo arranca un miembro de Hazelcast embebido que guarda la caché compartida (L2)
+ * y reparte los mensajes de invalidación entre los nodos.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "cache.l2", name = "enabled", havingValue = "true")
+public class TwoLevelCacheConfig {
+
+    // Se aplica antes que las instantáneas, de modo que en L2 se guardan las instantáneas serializables
+    public static final int TWO_LEVEL_ORDER = 10;
+    private static final String INVALIDATION_TOPIC = "cache-invalidation";
+
+    @Bean(destroyMethod = "shutdown")
+    public HazelcastInstance cacheHazelcastInstance(CacheSpecProperties properties) {
+        CacheSpecProperties.L2 l2 = properties.getL2();
+        Config config = new Config();
+        config.setClusterName(l2.getClusterName());
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        NetworkConfig network = config.getNetworkConfig();
+        network.setPort(l2.getPort()).setPortAutoIncrement(true);
+        JoinConfig join = network.getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getAutoDetectionConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).setMembers(l2.getMembers());
+        log.info("Arrancando Hazelcast para la caché L2 en el cluster {} con miembros {}", l2.getClusterName(), l2.getMembers());
+        return Hazelcast.newHazelcastInstance(config);
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(HazelcastInstance cacheHazelcastInstance) {
+        return new CacheInvalidationBus(cacheHazelcastInstance.getTopic(INVALIDATION_TOPIC));
+    }
+
+    @Bean
+    public CacheDecorator twoLevelCacheDecorator(
+            HazelcastInstance cacheHazelcastInstance,
+            CacheInvalidationBus cacheInvalidationBus,
+            CacheSpecProperties properties
+    ) {
+        return CacheDecorator.of(TWO_LEVEL_ORDER, cache -> {
+            if (!(cache instanceof CaffeineCache caffeineCache)) return cache;
+            return new TwoLevelCache(
+                    caffeineCache,
+                    cacheHazelcastInstance.getMap("cache-" + cache.getName()),
+                    cacheInvalidationBus,
+                    properties.specFor(cache.getName()).getExpireAfterWrite()
+            );
+        });
+    }
+}
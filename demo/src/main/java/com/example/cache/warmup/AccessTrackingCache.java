@@ -0,0 +1,37 @@
+package com.example.cache.warmup;
+
+import com.example.cache.support.ForwardingCache;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caché que anota en el {@link CacheAccessTracker} cada lectura para saber qué claves precargar al arrancar.
+ */
+public class AccessTrackingCache extends ForwardingCache {
+
+    private final CacheAccessTracker tracker;
+
+    public AccessTrackingCache(Cache delegate, CacheAccessTracker tracker) {
+        super(delegate);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        tracker.record(getName(), key);
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        tracker.record(getName(), key);
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        tracker.record(getName(), key);
+        return delegate.get(key, valueLoader);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cache.warmup;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta los accesos a cada clave de las cachés para saber cuáles son las más usadas.
+ * Por cada caché se guardan como mucho unas cuantas veces K claves, las menos frecuentes se descartan solas.
+ */
+public class CacheAccessTracker {
+
+    // Por cada clave que se guarda se siguen algunas más para que puedan llegar al top
+    private static final int CANDIDATES_PER_TOP_KEY = 10;
+
+    private final int topK;
+    private final Map<String, Cache<Object, LongAdder>> counters = new ConcurrentHashMap<>();
+
+    public CacheAccessTracker(int topK) {
+        this.topK = topK;
+    }
+
+    public void record(String cacheName, Object key) {
+        counters.computeIfAbsent(cacheName, name -> Caffeine.newBuilder()
+                        .maximumSize((long) topK * CANDIDATES_PER_TOP_KEY)
+                        .build())
+                .get(key, k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Devuelve las K claves más usadas de una caché, de más a menos accesos.
+     *
+     * @param cacheName El nombre de la caché.
+     * @return Las claves más usadas.
+     */
+    public List<Object> topKeys(String cacheName) {
+        Cache<Object, LongAdder> cacheCounters = counters.get(cacheName);
+        if (cacheCounters == null) return List.of();
+        return cacheCounters.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Object, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
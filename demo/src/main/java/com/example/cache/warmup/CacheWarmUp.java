@@ -0,0 +1,148 @@
+package com.example.cache.warmup;
+
+import com.example.cache.config.CacheSpecProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Precarga las cachés al arrancar con las claves más usadas en la ejecución anterior y las claves configuradas.
+ * <p>
+ * La precarga se hace al recibir ApplicationStartedEvent, antes de que Spring Boot marque la instancia como lista
+ * (ReadinessState.ACCEPTING_TRAFFIC), así que la instancia no se anuncia lista hasta que termina o se agota el tiempo.
+ * Al parar la aplicación se guardan en un fichero las claves más usadas de cada caché.
+ */
+@Slf4j
+public class CacheWarmUp {
+
+    private final CacheSpecProperties.WarmUp properties;
+    private final CacheAccessTracker tracker;
+    private final Map<String, CacheWarmUpLoader> loaders;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public CacheWarmUp(
+            CacheSpecProperties.WarmUp properties,
+            CacheAccessTracker tracker,
+            List<CacheWarmUpLoader> loaders
+    ) {
+        this.properties = properties;
+        this.tracker = tracker;
+        this.loaders = loaders.stream().collect(Collectors.toMap(CacheWarmUpLoader::cacheName, Function.identity()));
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+        warmUp();
+    }
+
+    /**
+     * Precarga las cachés en lotes en paralelo y espera como mucho el tiempo configurado.
+     *
+     * @return El número de claves que se han cargado.
+     */
+    public int warmUp() {
+        Map<String, Set<String>> keys = keysToLoad();
+        List<Callable<Void>> batches = new ArrayList<>();
+        AtomicInteger loaded = new AtomicInteger();
+        keys.forEach((cacheName, cacheKeys) -> {
+            CacheWarmUpLoader loader = loaders.get(cacheName);
+            if (loader == null) {
+                log.warn("No hay cargador para precargar la caché {}", cacheName);
+                return;
+            }
+            List<String> pending = new ArrayList<>(cacheKeys);
+            for (int i = 0; i < pending.size(); i += properties.getBatchSize()) {
+                List<String> batch = pending.subList(i, Math.min(i + properties.getBatchSize(), pending.size()));
+                batches.add(() -> {
+                    for (String key : batch) {
+                        if (Thread.currentThread().isInterrupted()) return null;
+                        try {
+                            loader.load(loader.parseKey(key));
+                            loaded.incrementAndGet();
+                        } catch (Exception e) {
+                            log.debug("No se ha podido precargar la clave {} de la caché {}: {}", key, cacheName, e.getMessage());
+                        }
+                    }
+                    return null;
+                });
+            }
+        });
+        if (batches.isEmpty()) return 0;
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+        try {
+            List<Future<Void>> results = executor.invokeAll(batches, properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            boolean timedOut = results.stream().anyMatch(Future::isCancelled);
+            if (timedOut) {
+                log.warn("La precarga de cachés no ha terminado en {}, se continúa el arranque", properties.getTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Precargadas {} claves de caché en {} ms", loaded.get(), System.currentTimeMillis() - start);
+        return loaded.get();
+    }
+
+    /**
+     * Guarda al parar la aplicación las claves más usadas de cada caché para precargarlas en el siguiente arranque.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void saveTopKeys() {
+        Map<String, List<String>> topKeys = new LinkedHashMap<>();
+        for (String cacheName : properties.getCaches()) {
+            List<String> cacheKeys = tracker.topKeys(cacheName).stream().map(String::valueOf).toList();
+            if (!cacheKeys.isEmpty()) topKeys.put(cacheName, cacheKeys);
+        }
+        if (topKeys.isEmpty()) return;
+        try {
+            mapper.writeValue(Path.of(properties.getFile()).toFile(), topKeys);
+            log.info("Guardadas las claves más usadas de las cachés en {}", properties.getFile());
+        } catch (IOException e) {
+            log.error("No se han podido guardar las claves más usadas de las cachés", e);
+        }
+    }
+
+    private Map<String, Set<String>> keysToLoad() {
+        Map<String, Set<String>> keys = new LinkedHashMap<>();
+        properties.getKeys().forEach((cacheName, cacheKeys) ->
+                keys.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).addAll(cacheKeys));
+        Path file = Path.of(properties.getFile());
+        if (Files.isReadable(file)) {
+            try {
+                Map<String, List<String>> saved = mapper.readValue(file.toFile(), new TypeReference<>() {});
+                saved.forEach((cacheName, cacheKeys) ->
+                        keys.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).addAll(cacheKeys));
+            } catch (IOException e) {
+                log.warn("No se ha podido leer el fichero de precarga {}: {}", file, e.getMessage());
+            }
+        }
+        return keys;
+    }
+}
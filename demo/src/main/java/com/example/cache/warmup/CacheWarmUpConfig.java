@@ -0,0 +1,41 @@
+package com.example.cache.warmup;
+
+import com.example.cache.config.CacheSpecProperties;
+import com.example.cache.support.CacheDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Activa el registro de accesos a las cachés y la precarga al arrancar (cache.warmup.enabled).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cache.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmUpConfig {
+
+    public static final int TRACKING_ORDER = 50;
+
+    @Bean
+    public CacheAccessTracker cacheAccessTracker(CacheSpecProperties properties) {
+        return new CacheAccessTracker(properties.getWarmup().getTopK());
+    }
+
+    @Bean
+    public CacheDecorator accessTrackingCacheDecorator(CacheAccessTracker tracker, CacheSpecProperties properties) {
+        List<String> trackedCaches = properties.getWarmup().getCaches();
+        return CacheDecorator.of(TRACKING_ORDER, cache ->
+                trackedCaches.contains(cache.getName()) ? new AccessTrackingCache(cache, tracker) : cache);
+    }
+
+    @Bean
+    public CacheWarmUp cacheWarmUp(
+            CacheSpecProperties properties,
+            CacheAccessTracker tracker,
+            ObjectProvider<CacheWarmUpLoader> loaders
+    ) {
+        return new CacheWarmUp(properties.getWarmup(), tracker, loaders.orderedStream().toList());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.cache.warmup;
+
+/**
+ * Carga en caché la entrada de una clave durante la precarga.
+ * Normalmente llama al método @Cacheable del servicio para que sea Spring quien guarde el valor.
+ */
+public interface CacheWarmUpLoader {
+
+    String cacheName();
+
+    /**
+     * Convierte la clave guardada como texto en la clave real de la caché.
+     */
+    Object parseKey(String key);
+
+    void load(Object key);
+}
@@ -0,0 +1,30 @@
+package com.example.funko.category.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Hilos en los que se ejecutan las importaciones de categorías, separados de los que atienden las peticiones HTTP.
+ */
+@Configuration
+public class CategoryImportConfig {
+
+    @Bean
+    public TaskExecutor categoryImportExecutor(
+            @Value("${categories.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${categories.import.queue-capacity:10}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        // Si la cola está llena se rechaza la importación en lugar de acumular ficheros
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("category-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
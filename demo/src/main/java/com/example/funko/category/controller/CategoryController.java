@@ -2,9 +2,11 @@ package com.example.funko.category.controller;
 
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.dto.output.OutputCategory;
-import com.example.funko.category.exceptions.CategoryDoesNotExistException;
+import com.example.funko.category.dto.output.OutputCategoryImportJob;
 import com.example.funko.category.mapper.CategoryMapper;
 import com.example.funko.category.model.Category;
+import com.example.funko.category.service.CategoryImportJob;
+import com.example.funko.category.service.CategoryImportService;
 import com.example.funko.category.service.CategoryService;
 import com.example.funko.category.storage.json.CategoryJsonStorageImpl;
 import com.example.funko.funko.dto.output.OutputFunko;
@@ -23,15 +25,21 @@ import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controlador para administrar categorías.
@@ -43,16 +51,19 @@ import java.util.concurrent.atomic.AtomicReference;
 public class CategoryController {
     private final Logger logger = LoggerFactory.getLogger(CategoryController.class);
     private final CategoryService service;
+    private final CategoryImportService importService;
     private final CategoryJsonStorageImpl categoryJsonStorage;
     private final PaginationLinksUtils paginationLinksUtils;
 
     @Autowired
     public CategoryController(
             CategoryService service,
+            CategoryImportService importService,
             CategoryJsonStorageImpl categoryJsonStorageImpl,
             PaginationLinksUtils paginationLinksUtils
     ) {
         this.service = service;
+        this.importService = importService;
         this.categoryJsonStorage = categoryJsonStorageImpl;
         this.paginationLinksUtils = paginationLinksUtils;
     }
@@ -76,8 +87,11 @@ public class CategoryController {
         Sort sort = direction.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         // Creamos cómo va a ser la paginación
         UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(request.getRequestURL().toString());
-        Page<OutputCategory> pageResult = service.findAll(PageRequest.of(page, size, sort),isDeleted, name)
-                .map(CategoryMapper::toOutputCategory);
+        Page<Category> categories = service.findAll(PageRequest.of(page, size, sort),isDeleted, name);
+        // El número de funkos de toda la página en una sola consulta
+        Map<UUID, Long> funkoCounts = service.getFunkoCounts(categories.map(Category::getId).getContent());
+        Page<OutputCategory> pageResult = categories
+                .map(category -> withFunkoCount(CategoryMapper.toOutputCategory(category), funkoCounts.getOrDefault(category.getId(), 0L)));
         return ResponseEntity.ok()
                 .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
                 .body(PageResponse.of(pageResult, sortBy, direction));
@@ -93,7 +107,7 @@ public class CategoryController {
     public ResponseEntity<OutputCategory> getCategoryById(@PathVariable UUID id) {
         logger.info("Recuperando categoría con ID {}", id);
         return ResponseEntity.ok(
-                CategoryMapper.toOutputCategory(
+                toOutputCategory(
                         service.findById(id)
                 )
         );
@@ -109,7 +123,7 @@ public class CategoryController {
     public ResponseEntity<OutputCategory> getCategoryByName(@PathVariable String name) {
         logger.info("Recuperando categorías por nombre {}", name);
         return ResponseEntity.ok(
-                CategoryMapper.toOutputCategory(
+                toOutputCategory(
                         service.findByName(name)
                 )
         );
@@ -125,7 +139,7 @@ public class CategoryController {
     public ResponseEntity<OutputCategory> save(@Valid @RequestBody InputCategory category) {
         logger.info("Creando una nueva categoría");
         return ResponseEntity.status(HttpStatus.CREATED).body(
-                CategoryMapper.toOutputCategory(
+                toOutputCategory(
                         service.save(category)
                 )
         );
@@ -145,7 +159,7 @@ public class CategoryController {
     ) {
         logger.info("Actualizando categoría con ID {}", id);
         return ResponseEntity.ok(
-                CategoryMapper.toOutputCategory(
+                toOutputCategory(
                         service.update(
                                 id,
                                 updatedCategory
@@ -168,61 +182,94 @@ public class CategoryController {
     ) {
         logger.info("Eliminando categoría con ID {}", id);
         return ResponseEntity.ok(
-                CategoryMapper.toOutputCategory(
+                toOutputCategory(
                         service.delete(id, logically))
         );
     }
 
+    // El número de funkos no está en la categoría cacheada, se lee aparte
+    private OutputCategory toOutputCategory(Category category) {
+        return withFunkoCount(CategoryMapper.toOutputCategory(category), service.getFunkoCount(category.getId()));
+    }
+
+    private OutputCategory withFunkoCount(OutputCategory outputCategory, long funkoCount) {
+        outputCategory.setFunkoCount(funkoCount);
+        return outputCategory;
+    }
+
     /**
-     * Importa las categorías de un fichero JSON.
+     * Exporta todas las categorías a un fichero JSON. Las categorías se escriben en la respuesta
+     * a medida que se leen de la base de datos, sin tenerlas todas en memoria.
+     *
+     * @param gzip Si se quiere el fichero comprimido con gzip.
+     * @return Un ResponseEntity con el fichero JSON de las categorías.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCategories(
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        logger.info("Exportando las categorías a un fichero json");
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+                service.exportCategories(gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                service.exportCategories(outputStream);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=categories.json" + (gzip ? ".gz" : ""))
+                .body(body);
+    }
+
+    /**
+     * Importa las categorías de un fichero JSON en segundo plano.
+     * La importación se valida entera antes de insertar nada: si alguna categoría no es válida
+     * o ya existe no se importa ninguna.
      *
      * @param file El fichero JSON con las categorías.
-     * @return Un ResponseEntity que contiene el resultado de la importación.
-    */
+     * @return Un ResponseEntity 202 con la importación, cuyo progreso se consulta en la URL de la cabecera Location.
+     */
     @PostMapping("/importjson")
-    public ResponseEntity importCategories(
+    public ResponseEntity<OutputCategoryImportJob> importCategories(
             @RequestPart("file") MultipartFile file
     ) {
         logger.info("Importando categorias de un fichero json");
         File tempFile;
         try {
+            // El fichero subido se borra al terminar la petición, la importación trabaja con una copia
             tempFile = File.createTempFile(UUID.randomUUID().toString(), ".json");
             file.transferTo(tempFile);
-            LinkedList<InputCategory> list = new LinkedList<>(); // Lista de categorias
-            AtomicReference<Boolean> somethingWentWrong = new AtomicReference<>(false);
-
-            categoryJsonStorage.getCategoriesFromFile(tempFile)
-                    .doOnNext(category -> {
-                            if (category == null) somethingWentWrong.set(true);
-                            else list.add(category);
-                    }).subscribe();
-            tempFile.delete();
-            // Si alguna no se ha podido importar
-            Boolean result = somethingWentWrong.get();
-            if (result) return ResponseEntity.badRequest().body("Hubo un problema al importar el fichero JSON");
-            // Ver si ninguna existe en la base de datos
-            Category existingCategory = null;
-            for (InputCategory category : list) {
-                try {
-                    existingCategory = service.findByName(category.getName());
-                }catch (CategoryDoesNotExistException ignored){};
-            }
-            if (existingCategory != null) return ResponseEntity.status(HttpStatus.CONFLICT).body("La categoría con nombre: " + existingCategory.getName() + " ya existe");
-            // Guardar las categorías en la base de datos
-            List<OutputCategory> saved = new LinkedList<>();
-            for (InputCategory category : list) {
-                saved.add(
-                        CategoryMapper.toOutputCategory(
-                                service.save(category)
-                        )
-                );
-            }
-            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
-
-        }catch (Exception e){
-            logger.error("Error importando el fichero JSON: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error guardando el fichero JSON: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
+        CategoryImportJob job = importService.startImport(tempFile);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(CategoryMapper.toOutputImportJob(job));
+    }
+
+    /**
+     * Recupera el progreso de una importación de categorías.
+     *
+     * @param id El identificador de la importación.
+     * @return Un ResponseEntity con el estado, las categorías leídas e importadas, los errores y el ritmo de la importación.
+     */
+    @GetMapping("/importjson/{id}")
+    public ResponseEntity<OutputCategoryImportJob> getImportJob(@PathVariable UUID id) {
+        logger.info("Recuperando la importación de categorías con ID {}", id);
+        return ResponseEntity.ok(
+                CategoryMapper.toOutputImportJob(
+                        importService.findJob(id)
+                )
+        );
     }
 }
 
@@ -1,5 +1,6 @@
 package com.example.funko.category.dto.output;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,5 +17,8 @@ public class OutputCategory {
     private String createdAt;
     private String updatedAt;
     private Boolean isDeleted = false;
+    // Solo en las respuestas de la API, la exportación no lo lleva
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long funkoCount;
 }
 
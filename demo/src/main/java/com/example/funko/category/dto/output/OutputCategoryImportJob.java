@@ -0,0 +1,28 @@
+package com.example.funko.category.dto.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutputCategoryImportJob {
+    private String id;
+    private String status;
+    private Long read;
+    private Long imported;
+    // Ya existían o estaban repetidas en el fichero, solo al cargar las categorías iniciales
+    private Long skipped;
+    private Long errorCount;
+    private List<String> errors;
+    // Categorías insertadas por segundo
+    private Double throughput;
+    private String createdAt;
+    private String startedAt;
+    private String finishedAt;
+}
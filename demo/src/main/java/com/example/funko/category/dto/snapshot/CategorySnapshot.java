@@ -0,0 +1,21 @@
+package com.example.funko.category.dto.snapshot;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Instantánea inmutable de una categoría para guardar en caché.
+ * No incluye la colección de funkos, que es perezosa y puede ser muy grande.
+ */
+public record CategorySnapshot(
+        UUID id,
+        String name,
+        String description,
+        LocalDateTime descriptionCreatedAt,
+        LocalDateTime descriptionUpdatedAt,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        boolean isDeleted
+) implements Serializable {
+}
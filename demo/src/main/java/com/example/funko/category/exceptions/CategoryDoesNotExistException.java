@@ -9,4 +9,15 @@ public class CategoryDoesNotExistException extends CategoryException {
     public CategoryDoesNotExistException(String message) {
         super(message);
     }
+
+    private CategoryDoesNotExistException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+
+    /**
+     * Excepción para una búsqueda que ya se sabe que falla: no captura la traza, que es lo más caro de crear una excepción.
+     */
+    public static CategoryDoesNotExistException cachedMiss(String message) {
+        return new CategoryDoesNotExistException(message, false);
+    }
 }
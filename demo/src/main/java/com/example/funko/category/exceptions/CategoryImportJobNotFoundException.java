@@ -0,0 +1,11 @@
+package com.example.funko.category.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CategoryImportJobNotFoundException extends CategoryException {
+    public CategoryImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
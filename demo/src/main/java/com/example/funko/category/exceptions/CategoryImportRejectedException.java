@@ -0,0 +1,11 @@
+package com.example.funko.category.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CategoryImportRejectedException extends CategoryException {
+    public CategoryImportRejectedException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,11 @@ package com.example.funko.category.mapper;
 
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.dto.output.OutputCategory;
+import com.example.funko.category.dto.output.OutputCategoryImportJob;
+import com.example.funko.category.dto.snapshot.CategorySnapshot;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.model.Description;
+import com.example.funko.category.service.CategoryImportJob;
 
 /**
  * Esta clase proporciona métodos para mapear objetos de modelo de categoría a DTOs y viceversa.
@@ -26,4 +29,82 @@ public class CategoryMapper {
         outputCategory.setIsDeleted(category.getIsDeleted());
         return outputCategory;
     }
+
+    /**
+     * Convierte un DTO de InputCategory en una categoría nueva.
+     *
+     * @param inputCategory Los datos de la categoría.
+     * @return Una categoría nueva, con su identificador y su descripción.
+     */
+    public static Category toCategory(InputCategory inputCategory) {
+        Description description = new Description();
+        description.setText(inputCategory.getDescription());
+        Category category = new Category();
+        category.setName(inputCategory.getName());
+        category.setDescription(description);
+        return category;
+    }
+
+    /**
+     * Convierte el estado de una importación de categorías en un DTO de OutputCategoryImportJob.
+     *
+     * @param job La importación.
+     * @return El DTO con el progreso de la importación.
+     */
+    public static OutputCategoryImportJob toOutputImportJob(CategoryImportJob job) {
+        return OutputCategoryImportJob.builder()
+                .id(job.getId().toString())
+                .status(job.getStatus().name())
+                .read(job.getRead().get())
+                .imported(job.getImported().get())
+                .skipped(job.getSkipped().get())
+                .errorCount(job.getErrorCount().get())
+                .errors(job.getErrors())
+                .throughput(job.getThroughput())
+                .createdAt(job.getCreatedAt().toString())
+                .startedAt(job.getStartedAt() != null ? job.getStartedAt().toString() : null)
+                .finishedAt(job.getFinishedAt() != null ? job.getFinishedAt().toString() : null)
+                .build();
+    }
+
+    /**
+     * Convierte una categoría en una instantánea inmutable para guardarla en caché.
+     *
+     * @param category La categoría que se va a convertir.
+     * @return La instantánea de la categoría, sin la colección de funkos.
+     */
+    public static CategorySnapshot toSnapshot(Category category) {
+        Description description = category.getDescription();
+        return new CategorySnapshot(
+                category.getId(),
+                category.getName(),
+                description != null ? description.getText() : null,
+                description != null ? description.getCreatedAt() : null,
+                description != null ? description.getUpdatedAt() : null,
+                category.getCreatedAt(),
+                category.getUpdatedAt(),
+                Boolean.TRUE.equals(category.getIsDeleted())
+        );
+    }
+
+    /**
+     * Reconstruye una categoría separada de la base de datos a partir de su instantánea.
+     *
+     * @param snapshot La instantánea guardada en caché.
+     * @return Una categoría nueva con los datos de la instantánea.
+     */
+    public static Category fromSnapshot(CategorySnapshot snapshot) {
+        Description description = new Description();
+        description.setText(snapshot.description());
+        description.setCreatedAt(snapshot.descriptionCreatedAt());
+        description.setUpdatedAt(snapshot.descriptionUpdatedAt());
+        Category category = new Category();
+        category.setId(snapshot.id());
+        category.setName(snapshot.name());
+        category.setDescription(description);
+        category.setCreatedAt(snapshot.createdAt());
+        category.setUpdatedAt(snapshot.updatedAt());
+        category.setIsDeleted(snapshot.isDeleted());
+        return category;
+    }
 }
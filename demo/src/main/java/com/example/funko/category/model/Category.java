@@ -10,6 +10,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 
@@ -22,6 +24,8 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "category")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Category {
@@ -38,6 +42,7 @@ public class Category {
     @NotNull(message = "La categoría debe tener una descripción")
     private Description description;
     @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories.funkos")
     private List<Funko> funkos = Collections.emptyList();
     @CreatedBy
     @Column(name = "created_at", nullable = false)
@@ -0,0 +1,29 @@
+package com.example.funko.category.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Número de funkos de una categoría. Está en su propia tabla, sin caché de segundo nivel,
+ * para que cambiarlo no invalide las categorías cacheadas ni las consultas sobre la tabla category.
+ */
+@Data
+@Entity
+@Table(name = "category_funko_count")
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryFunkoCount {
+    @Id
+    @Column(name = "category_id")
+    private UUID categoryId;
+    // Solo lo cambian las consultas de CategoryFunkoCountRepository
+    @Column(name = "funko_count", nullable = false)
+    private Long funkoCount = 0L;
+}
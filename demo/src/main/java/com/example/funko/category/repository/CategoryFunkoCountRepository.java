@@ -0,0 +1,58 @@
+package com.example.funko.category.repository;
+
+import com.example.funko.category.model.CategoryFunkoCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CategoryFunkoCountRepository extends JpaRepository<CategoryFunkoCount, UUID> {
+
+    @Query("select n.funkoCount from CategoryFunkoCount n where n.categoryId = :id")
+    Optional<Long> findFunkoCount(@Param("id") UUID categoryId);
+
+    // Suma o resta funkos al contador en la propia base de datos, sin leerlo.
+    // Devuelve 0 si la categoría todavía no tiene contador
+    @Transactional
+    @Modifying
+    @Query("update CategoryFunkoCount n set n.funkoCount = n.funkoCount + :delta where n.categoryId = :id")
+    int adjust(@Param("id") UUID categoryId, @Param("delta") long delta);
+
+    // Crea el contador de una categoría que no lo tiene contando sus funkos.
+    // Va en su propia transacción: solo cuenta funkos confirmados y, si otra la crea a la vez,
+    // la violación de clave no deshace la transacción de quien la llama
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("""
+            insert into CategoryFunkoCount (categoryId, funkoCount)
+            select c.id, (select count(f) from Funko f where f.category = c) from Category c
+            where c.id = :id and not exists (select 1 from CategoryFunkoCount n where n.categoryId = c.id)
+            """)
+    int insertCounted(@Param("id") UUID categoryId);
+
+    // Corrige en una sola sentencia los contadores que no coinciden con los funkos reales
+    @Transactional
+    @Modifying
+    @Query("""
+            update CategoryFunkoCount n set n.funkoCount = (select count(f) from Funko f where f.category.id = n.categoryId)
+            where n.funkoCount <> (select count(f) from Funko f where f.category.id = n.categoryId)
+            """)
+    int reconcile();
+
+    // Crea los contadores que faltan, por ejemplo los de las categorías importadas
+    @Transactional
+    @Modifying
+    @Query("""
+            insert into CategoryFunkoCount (categoryId, funkoCount)
+            select c.id, (select count(f) from Funko f where f.category = c) from Category c
+            where not exists (select 1 from CategoryFunkoCount n where n.categoryId = c.id)
+            """)
+    int insertMissing();
+}
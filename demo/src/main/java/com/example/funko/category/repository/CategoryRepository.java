@@ -1,17 +1,52 @@
 package com.example.funko.category.repository;
 
 import com.example.funko.category.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, UUID>, JpaSpecificationExecutor<Category> {
+public interface CategoryRepository extends JpaRepository<Category, UUID>, JpaSpecificationExecutor<Category>, CategoryRepositoryCustom {
 
+    // Se guarda en la caché de consultas de Hibernate, se invalida sola al modificar la tabla category
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "categories.by-name")
+    })
     Optional<Category> findByName(String name);
 
+    // Para las búsquedas que no están en el índice de nombres de CategoryServiceImpl
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "categories.by-name")
+    })
+    Optional<Category> findFirstByNameIgnoreCase(String name);
+
+    // Todas las categorías leídas poco a poco del cursor, para exportarlas sin cargarlas en memoria.
+    // No pasan por la caché de segundo nivel para no desplazar las categorías que se usan de verdad.
+    // Se tiene que consumir dentro de una transacción y cerrar al terminar.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Category c order by c.name")
+    Stream<Category> streamAll();
+
+    // Nombres (en minúsculas) que ya existen de entre los indicados, en una sola consulta
+    @Query("select lower(c.name) from Category c where lower(c.name) in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
 }
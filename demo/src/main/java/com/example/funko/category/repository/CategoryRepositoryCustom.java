@@ -0,0 +1,19 @@
+package com.example.funko.category.repository;
+
+import com.example.funko.category.model.Category;
+
+import java.util.List;
+
+/**
+ * Operaciones de CategoryRepository que no se pueden declarar como consultas de Spring Data.
+ */
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Inserta categorías nuevas con persist, sin el select previo que hace save(),
+     * de modo que Hibernate puede agrupar los insert en lotes (hibernate.jdbc.batch_size).
+     *
+     * @param categories Las categorías nuevas.
+     */
+    void insertAll(List<Category> categories);
+}
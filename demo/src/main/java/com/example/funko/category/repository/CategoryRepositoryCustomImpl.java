@@ -0,0 +1,25 @@
+package com.example.funko.category.repository;
+
+import com.example.funko.category.model.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Category> categories) {
+        for (Category category : categories) {
+            entityManager.persist(category);
+        }
+        entityManager.flush();
+        // Las categorías insertadas no se vuelven a usar, no hace falta que sigan en el contexto de persistencia
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.funko.category.service;
+
+import com.example.cache.config.CacheRefreshLoader;
+import com.example.funko.category.mapper.CategoryMapper;
+import com.example.funko.category.repository.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Refresca en segundo plano las entradas de la caché de categorías (refresh-after-write).
+ * Mientras se recarga se sigue sirviendo el valor anterior. Si la categoría ya no existe la entrada se borra.
+ */
+@Component
+public class CategoryCacheRefreshLoader implements CacheRefreshLoader {
+
+    private final CategoryRepository repository;
+
+    @Autowired
+    public CategoryCacheRefreshLoader(CategoryRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String cacheName() {
+        return "categories";
+    }
+
+    @Override
+    public Object load(Object key) {
+        // En la caché se guardan instantáneas, no entidades
+        return repository.findById((UUID) key)
+                .map(CategoryMapper::toSnapshot)
+                .orElse(null);
+    }
+}
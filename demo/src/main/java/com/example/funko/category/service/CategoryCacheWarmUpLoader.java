@@ -0,0 +1,36 @@
+package com.example.funko.category.service;
+
+import com.example.cache.warmup.CacheWarmUpLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Precarga la caché de categorías llamando a CategoryService.findById, que es quien guarda la categoría en caché.
+ */
+@Component
+public class CategoryCacheWarmUpLoader implements CacheWarmUpLoader {
+
+    private final CategoryService service;
+
+    @Autowired
+    public CategoryCacheWarmUpLoader(CategoryService service) {
+        this.service = service;
+    }
+
+    @Override
+    public String cacheName() {
+        return "categories";
+    }
+
+    @Override
+    public Object parseKey(String key) {
+        return UUID.fromString(key);
+    }
+
+    @Override
+    public void load(Object key) {
+        service.findById((UUID) key);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.funko.category.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que recalcula el número de funkos de cada categoría.
+ * Los contadores se mantienen al crear, borrar o cambiar de categoría un Funko,
+ * esta tarea solo corrige las diferencias que hayan podido quedar.
+ */
+@Component
+public class CategoryFunkoCountReconciler {
+
+    private final Logger logger = LoggerFactory.getLogger(CategoryFunkoCountReconciler.class);
+    private final CategoryService categoryService;
+
+    @Autowired
+    public CategoryFunkoCountReconciler(CategoryService categoryService) {
+        this.categoryService = categoryService;
+    }
+
+    @Scheduled(cron = "${categories.funko-count.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        int fixed = categoryService.reconcileFunkoCounts();
+        if (fixed > 0) {
+            logger.warn("Corregido el número de funkos de {} categorías en {} ms", fixed, System.currentTimeMillis() - start);
+        } else {
+            logger.info("El número de funkos de las categorías es correcto ({} ms)", System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.funko.category.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado de una importación de categorías. Lo actualiza el hilo que ejecuta la importación
+ * y lo leen las peticiones que consultan el progreso.
+ */
+@Getter
+public class CategoryImportJob {
+
+    public enum Status { PENDING, VALIDATING, IMPORTING, COMPLETED, FAILED }
+
+    // Solo se guardan los primeros errores, el resto solo se cuentan
+    private static final int MAX_ERRORS = 100;
+
+    private final UUID id = UUID.randomUUID();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    // Categorías que ya existían o estaban repetidas, solo en las importaciones que se las saltan
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<CategoryImportJob> finished = new CompletableFuture<>();
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.VALIDATING;
+    }
+
+    void startImporting() {
+        status = Status.IMPORTING;
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+        finished.complete(this);
+    }
+
+    void fail() {
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+        finished.complete(this);
+    }
+
+    long incrementRead() {
+        return read.incrementAndGet();
+    }
+
+    void addImported(long count) {
+        imported.addAndGet(count);
+    }
+
+    void addSkipped(long count) {
+        skipped.addAndGet(count);
+    }
+
+    void addError(String error) {
+        if (errorCount.incrementAndGet() <= MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    boolean hasErrors() {
+        return errorCount.get() > 0;
+    }
+
+    /**
+     * Se completa cuando la importación termina, tanto si acaba bien como si falla.
+     */
+    public CompletableFuture<CategoryImportJob> whenFinished() {
+        return finished;
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /**
+     * Categorías insertadas por segundo desde que empezó la importación.
+     */
+    public double getThroughput() {
+        if (startedAt == null) return 0;
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return imported.get() * 1000.0 / millis;
+    }
+}
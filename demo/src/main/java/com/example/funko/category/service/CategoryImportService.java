@@ -0,0 +1,14 @@
+package com.example.funko.category.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.util.UUID;
+
+public interface CategoryImportService {
+    CategoryImportJob startImport(File file);
+
+    CategoryImportJob startMerge(Resource resource);
+
+    CategoryImportJob findJob(UUID id);
+}
@@ -0,0 +1,225 @@
+package com.example.funko.category.service;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.category.dto.input.InputCategory;
+import com.example.funko.category.exceptions.CategoryImportJobNotFoundException;
+import com.example.funko.category.exceptions.CategoryImportRejectedException;
+import com.example.funko.category.mapper.CategoryMapper;
+import com.example.funko.category.model.Category;
+import com.example.funko.category.repository.CategoryRepository;
+import com.example.funko.category.storage.json.CategoryJsonStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Importa categorías de un fichero JSON en segundo plano.
+ * <p>
+ * La importación se hace en dos pasadas sobre el fichero, leyéndolo en streaming:
+ * <ol>
+ *     <li>Validación: se comprueban los campos y los nombres repetidos dentro del fichero, y con una consulta
+ *     {@code name in (...)} por lote los nombres que ya existen. Si hay algún error no se importa nada.</li>
+ *     <li>Importación: se insertan las categorías en lotes, cada lote en su propia transacción.</li>
+ * </ol>
+ * Si la importación falla en la segunda pasada (por ejemplo porque otra petición crea una categoría con el mismo
+ * nombre entre las dos pasadas) los lotes ya confirmados se quedan guardados: el estado es FAILED y
+ * {@link CategoryImportJob#getImported()} dice cuántas categorías se han importado.
+ * <p>
+ * {@link #startMerge(Resource)} hace lo mismo pero se salta las categorías que ya existen o están repetidas
+ * en vez de cancelar la importación, por ejemplo para cargar las categorías iniciales.
+ * El progreso se consulta con {@link #findJob(UUID)} mientras la importación está en marcha y durante una hora después.
+ */
+@Service
+public class CategoryImportServiceImpl implements CategoryImportService {
+
+    private final Logger logger = LoggerFactory.getLogger(CategoryImportServiceImpl.class);
+    private final CategoryRepository categoryRepository;
+    private final CategoryJsonStorage categoryJsonStorage;
+    private final NegativeLookupCache negativeLookups;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final int batchSize;
+    private final Cache<UUID, CategoryImportJob> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    @Autowired
+    public CategoryImportServiceImpl(
+            CategoryRepository categoryRepository,
+            CategoryJsonStorage categoryJsonStorage,
+            NegativeLookupCache negativeLookups,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("categoryImportExecutor") TaskExecutor executor,
+            @Value("${categories.import.batch-size:500}") int batchSize
+    ) {
+        this.categoryRepository = categoryRepository;
+        this.categoryJsonStorage = categoryJsonStorage;
+        this.negativeLookups = negativeLookups;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Empieza a importar un fichero en segundo plano. El fichero se borra al terminar.
+     *
+     * @param file El fichero JSON con un array de categorías.
+     * @return La importación, para consultar su progreso.
+     * @throws CategoryImportRejectedException Si hay demasiadas importaciones en curso.
+     */
+    @Override
+    public CategoryImportJob startImport(File file) {
+        return submit(() -> categoryJsonStorage.getCategoriesFromFile(file), false, file::delete);
+    }
+
+    /**
+     * Empieza a importar en segundo plano las categorías de un recurso que todavía no existen.
+     * Las que ya existen o están repetidas se saltan, no son errores.
+     *
+     * @param resource El recurso JSON con un array de categorías, por ejemplo del classpath.
+     * @return La importación, para consultar su progreso.
+     * @throws CategoryImportRejectedException Si hay demasiadas importaciones en curso.
+     */
+    @Override
+    public CategoryImportJob startMerge(Resource resource) {
+        return submit(() -> read(resource), true, () -> {});
+    }
+
+    private CategoryImportJob submit(Supplier<Flux<InputCategory>> source, boolean skipExisting, Runnable cleanup) {
+        CategoryImportJob job = new CategoryImportJob();
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, source, skipExisting, cleanup));
+        } catch (TaskRejectedException e) {
+            jobs.invalidate(job.getId());
+            cleanup.run();
+            throw new CategoryImportRejectedException("Hay demasiadas importaciones en curso, inténtalo más tarde");
+        }
+        logger.info("Importación de categorías {} en cola", job.getId());
+        return job;
+    }
+
+    @Override
+    public CategoryImportJob findJob(UUID id) {
+        CategoryImportJob job = jobs.getIfPresent(id);
+        if (job == null) throw new CategoryImportJobNotFoundException("No existe la importación con id: " + id);
+        return job;
+    }
+
+    // Se lee como stream del recurso, funciona también dentro del jar. Cada suscripción lo vuelve a abrir
+    private Flux<InputCategory> read(Resource resource) {
+        return Flux.defer(() -> {
+            try {
+                return categoryJsonStorage.getCategoriesFromStream(resource.getInputStream());
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
+        });
+    }
+
+    private void run(CategoryImportJob job, Supplier<Flux<InputCategory>> source, boolean skipExisting, Runnable cleanup) {
+        logger.info("Empieza la importación de categorías {}", job.getId());
+        job.start();
+        try {
+            Set<String> pending = validate(job, source.get(), skipExisting);
+            if (job.hasErrors()) {
+                job.fail();
+                logger.warn("Importación de categorías {} cancelada, {} errores de validación", job.getId(), job.getErrorCount().get());
+                return;
+            }
+
+            job.startImporting();
+            // toIterable(1) para no tener en memoria más de un lote por delante
+            for (List<InputCategory> batch : source.get().buffer(batchSize).toIterable(1)) {
+                List<Category> categories = batch.stream()
+                        // Solo las que han pasado la validación, y cada nombre una vez
+                        .filter(category -> pending.remove(CategoryServiceImpl.normalizeName(category.getName())))
+                        .map(CategoryMapper::toCategory)
+                        .toList();
+                if (categories.isEmpty()) continue;
+                transactionTemplate.executeWithoutResult(status -> categoryRepository.insertAll(categories));
+                // Por si alguno de los nombres se había buscado antes de existir
+                categories.forEach(category -> negativeLookups.forget(
+                        CategoryServiceImpl.NEGATIVE_NAME_LOOKUP,
+                        CategoryServiceImpl.normalizeName(category.getName())
+                ));
+                job.addImported(categories.size());
+            }
+            job.complete();
+            logger.info("Importación de categorías {} terminada: {} categorías, {} saltadas, {} por segundo",
+                    job.getId(), job.getImported().get(), job.getSkipped().get(), String.format("%.1f", job.getThroughput()));
+        } catch (Exception e) {
+            logger.error("Error en la importación de categorías {}", job.getId(), e);
+            job.addError("Error al importar: " + e.getMessage());
+            if (job.getImported().get() > 0) {
+                job.addError("Se han importado " + job.getImported().get() + " categorías antes del error, no se deshacen");
+            }
+            job.fail();
+        } finally {
+            cleanup.run();
+        }
+    }
+
+    /**
+     * Primera pasada: comprueba cada categoría del fichero y, lote a lote, si su nombre ya existe.
+     * Así cada consulta {@code in (...)} tiene como mucho batchSize nombres, sea cual sea el tamaño del fichero.
+     *
+     * @return Los nombres normalizados de las categorías que hay que insertar.
+     */
+    private Set<String> validate(CategoryImportJob job, Flux<InputCategory> categories, boolean skipExisting) {
+        Set<String> names = new HashSet<>();
+        for (List<InputCategory> batch : categories.buffer(batchSize).toIterable(1)) {
+            List<String> batchNames = new ArrayList<>(batch.size());
+            for (InputCategory category : batch) {
+                long position = job.incrementRead();
+                if (category.getName() == null || category.getName().isBlank()) {
+                    job.addError("Categoría " + position + ": el nombre no puede estar vacío");
+                } else if (category.getDescription() == null || category.getDescription().isBlank()) {
+                    job.addError("Categoría " + position + ": la categoría debe tener una descripción");
+                } else if (!names.add(CategoryServiceImpl.normalizeName(category.getName()))) {
+                    if (skipExisting) {
+                        job.addSkipped(1);
+                        continue;
+                    }
+                    job.addError("Categoría " + position + ": el nombre " + category.getName() + " está repetido en el fichero");
+                } else {
+                    batchNames.add(CategoryServiceImpl.normalizeName(category.getName()));
+                }
+            }
+            // Con algún error ya no se va a importar nada, no hace falta seguir consultando
+            if (!job.hasErrors() && !batchNames.isEmpty()) {
+                for (String name : categoryRepository.findExistingNames(batchNames)) {
+                    if (skipExisting) {
+                        names.remove(name);
+                        job.addSkipped(1);
+                    } else {
+                        job.addError("La categoría con nombre: " + name + " ya existe");
+                    }
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.funko.category.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Carga las categorías iniciales de data/categories.json cuando la aplicación ya está arrancada,
+ * en segundo plano para no retrasar el arranque.
+ * Es una importación de CategoryImportService que se salta las categorías que ya existen.
+ */
+@Component
+@ConditionalOnProperty(name = "categories.seed.enabled", havingValue = "true", matchIfMissing = true)
+public class CategorySeeder {
+
+    private final Logger logger = LoggerFactory.getLogger(CategorySeeder.class);
+    private final CategoryImportService importService;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final String resource;
+
+    @Autowired
+    public CategorySeeder(
+            CategoryImportService importService,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${categories.seed.resource:data/categories.json}") String resource
+    ) {
+        this.importService = importService;
+        this.meterRegistry = meterRegistry;
+        this.resource = resource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        seed();
+    }
+
+    /**
+     * Empieza a cargar las categorías iniciales. Al terminar se registra el tiempo que ha tardado.
+     *
+     * @return La importación de las categorías, se puede consultar como cualquier otra.
+     */
+    public CategoryImportJob seed() {
+        logger.info("Cargando las categorías iniciales de {}", resource);
+        CategoryImportJob job = importService.startMerge(new ClassPathResource(resource));
+        job.whenFinished().thenAccept(this::report);
+        return job;
+    }
+
+    private void report(CategoryImportJob job) {
+        // Desde que se pide, incluye el tiempo en la cola de importaciones
+        Duration elapsed = Duration.between(job.getCreatedAt(), job.getFinishedAt());
+        Timer.builder("categories.seed")
+                .description("Tiempo de la carga de las categorías iniciales")
+                .register(meterRegistry.getIfAvailable(SimpleMeterRegistry::new))
+                .record(elapsed);
+        if (job.getStatus() == CategoryImportJob.Status.FAILED) {
+            logger.error("Error al cargar las categorías iniciales en {} ms: {}", elapsed.toMillis(), job.getErrors());
+        } else {
+            logger.info("Categorías iniciales cargadas en {} ms: {} insertadas, {} ya existían",
+                    elapsed.toMillis(), job.getImported().get(), job.getSkipped().get());
+        }
+    }
+}
@@ -6,7 +6,11 @@ import com.example.funko.funko.exceptions.FunkoNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,6 +25,16 @@ public interface CategoryService {
 
     Category findByName(String name);
 
+    long getFunkoCount(UUID categoryId);
+
+    Map<UUID, Long> getFunkoCounts(Collection<UUID> categoryIds);
+
+    void adjustFunkoCount(UUID categoryId, long delta);
+
+    int reconcileFunkoCounts();
+
+    long exportCategories(OutputStream outputStream) throws IOException;
+
     Page<Category> findAll(
             Pageable pageable,
             Optional<Boolean> isDeleted,
@@ -1,35 +1,53 @@
 package com.example.funko.category.service;
 
+import com.example.cache.negative.NegativeLookupCache;
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.exceptions.CategoryAlreadyExistsException;
 import com.example.funko.category.exceptions.CategoryDoesNotExistException;
 import com.example.funko.category.exceptions.CategoryException;
 import com.example.funko.category.exceptions.CategoryHasFunkosException;
+import com.example.funko.category.dto.snapshot.CategorySnapshot;
+import com.example.funko.category.mapper.CategoryMapper;
 import com.example.funko.category.model.Category;
+import com.example.funko.category.model.CategoryFunkoCount;
 import com.example.funko.category.model.Description;
+import com.example.funko.category.repository.CategoryFunkoCountRepository;
 import com.example.funko.category.repository.CategoryRepository;
 import com.example.funko.category.storage.json.CategoryJsonStorage;
 import com.example.funko.funko.model.Funko;
-import jakarta.annotation.PostConstruct;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.Join;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.File;
-import java.net.URL;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Implementa la interfaz CategoryService y proporciona métodos para administrar categorías.
@@ -40,9 +58,18 @@ import java.util.UUID;
 @CacheConfig(cacheNames = {"categories"})
 public class CategoryServiceImpl implements CategoryService {
 
+    // Búsquedas por nombre sin resultado en la caché negativa
+    static final String NEGATIVE_NAME_LOOKUP = "categories.name";
+
     private final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
     private final CategoryRepository categoryRepository;
+    private final CategoryFunkoCountRepository funkoCountRepository;
     private final CategoryJsonStorage categoryJsonStorage;
+    private final NegativeLookupCache negativeLookups;
+    private final EntityManager entityManager;
+    // Índice de categorías por nombre en minúsculas, se rellena con cada búsqueda.
+    // Es de cada instancia: caduca para recoger lo que cambien las demás instancias y tiene tamaño máximo
+    private final Cache<String, CategorySnapshot> categoriesByName;
 
     /**
      * Constructor que inyecta la dependencia CategoryRepository.
@@ -50,28 +77,22 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     public CategoryServiceImpl(
             CategoryRepository categoryRepository,
-            CategoryJsonStorage categoryJsonStorage
+            CategoryFunkoCountRepository funkoCountRepository,
+            CategoryJsonStorage categoryJsonStorage,
+            NegativeLookupCache negativeLookups,
+            EntityManager entityManager,
+            @Value("${categories.name-index.maximum-size:1000}") long nameIndexMaximumSize,
+            @Value("${categories.name-index.expire-after-write:5m}") Duration nameIndexExpireAfterWrite
     ) {
         this.categoryJsonStorage = categoryJsonStorage;
         this.categoryRepository = categoryRepository;
-    }
-
-    /**
-     * Inicializa la categoría con algunos datos de prueba.
-     * Este método se ejecuta solo una vez al iniciar la aplicación.
-     */
-    @PostConstruct
-    public void init() {
-        logger.info("Inicializando categorías con datos de prueba");
-        try {
-            URL location = ClassLoader.getSystemResource("data/categories.json");
-            File categoryJsonFile = new File(location.getPath());
-            categoryJsonStorage.getCategoriesFromFile(categoryJsonFile)
-                    .doOnNext(this::save)
-                    .subscribe();
-        }catch (Exception e){
-            logger.error("Error al inicializar las categorías con datos de prueba", e);
-        }
+        this.funkoCountRepository = funkoCountRepository;
+        this.negativeLookups = negativeLookups;
+        this.entityManager = entityManager;
+        this.categoriesByName = Caffeine.newBuilder()
+                .maximumSize(nameIndexMaximumSize)
+                .expireAfterWrite(nameIndexExpireAfterWrite)
+                .build();
     }
 
     /**
@@ -82,7 +103,7 @@ public class CategoryServiceImpl implements CategoryService {
      * @throws CategoryDoesNotExistException Si no se encuentra una categoría con el identificador especificado.
      */
     @Override
-    @Cacheable(key = "#id")
+    @Cacheable(key = "#id", sync = true) // Solo una carga por id a la vez, el resto espera a esa carga
     public Category findById(UUID id) {
         logger.info("Buscando la categoría con id: {}", id);
         return categoryRepository.findById(id)
@@ -104,10 +125,15 @@ public class CategoryServiceImpl implements CategoryService {
         newDescription.setText(category.getDescription());
         newCategory.setName(category.getName());
         newCategory.setDescription(newDescription);
-        if (categoryRepository.findByName(category.getName()).isPresent()){
+        if (findSnapshotByName(category.getName()).isPresent()){
             throw new CategoryAlreadyExistsException("Ya existe una categoría con el nombre: " + category.getName());
         }
-        return categoryRepository.save(newCategory);
+        Category savedCategory = categoryRepository.save(newCategory);
+        funkoCountRepository.save(new CategoryFunkoCount(savedCategory.getId(), 0L));
+        // Por si se había buscado antes de existir. Tras confirmar, para que una búsqueda concurrente no vuelva a guardar el fallo
+        afterCommit(() -> negativeLookups.forget(NEGATIVE_NAME_LOOKUP, normalizeName(savedCategory.getName())));
+        indexByName(null, savedCategory);
+        return savedCategory;
     }
 
     /**
@@ -124,14 +150,15 @@ public class CategoryServiceImpl implements CategoryService {
     public Category update(UUID id, InputCategory updatedCategory) {
         logger.info("Actualizando la categoría con id: {}",id);
         Optional<Category> result = categoryRepository.findById(id);
-        Optional<Category> result2 = categoryRepository.findByName(updatedCategory.getName());
+        Optional<CategorySnapshot> result2 = findSnapshotByName(updatedCategory.getName());
 
         if (result.isPresent()) { // Si existe esa categoria
-            if (result2.isPresent() && result2.get().getId() != id) { // Si existe una categoría con ese nombre
+            if (result2.isPresent() && !result2.get().id().equals(id)) { // Si existe una categoría con ese nombre
                 // Si la categoría que estás intentando actualizar tiene un nombre que ya existe en la BBDD
                 throw new CategoryAlreadyExistsException("Ya existe una categoría con el nombre " + updatedCategory.getName());
             }
             Category existingCategory = result.get();
+            String previousName = existingCategory.getName();
             existingCategory.setName(updatedCategory.getName());
             // Si la descripción es diferente a la que tenía
             if (!result.get().getDescription().getText().equals(updatedCategory.getDescription())){
@@ -141,7 +168,10 @@ public class CategoryServiceImpl implements CategoryService {
                 description.setCreatedAt(result.get().getDescription().getCreatedAt());
                 existingCategory.setDescription(description);
             }
-            return categoryRepository.save(existingCategory);
+            Category savedCategory = categoryRepository.save(existingCategory);
+            afterCommit(() -> negativeLookups.forget(NEGATIVE_NAME_LOOKUP, normalizeName(savedCategory.getName()))); // El nuevo nombre ya existe
+            indexByName(previousName, savedCategory);
+            return savedCategory;
         } else throw new CategoryDoesNotExistException("Categoria no encontrada para el id: " + id);
     }
 
@@ -161,7 +191,7 @@ public class CategoryServiceImpl implements CategoryService {
         Optional<Category> category = categoryRepository.findById(id);
         if (category.isEmpty()) {
             throw new CategoryDoesNotExistException("Error al borrar la categoría con id: " + id);
-        } else if (!category.get().getFunkos().isEmpty()){
+        } else if (getFunkoCount(id) > 0){ // Sin cargar la colección de funkos
             throw new CategoryHasFunkosException("Esta categoría tiene funkos, no se puede borrar");
         }
         Category validCategory = category.get();
@@ -170,12 +200,109 @@ public class CategoryServiceImpl implements CategoryService {
         categoryRepository.deleteById(id);
         if (logically){
             categoryRepository.save(validCategory);
+            indexByName(validCategory.getName(), validCategory); // Se sigue pudiendo buscar por nombre
+        } else {
+            funkoCountRepository.deleteById(id);
+            removeFromNameIndex(validCategory.getName());
         }
         return validCategory;
     }
 
     /**
-     * Busca y devuelve una categoría por su nombre.
+     * Devuelve el número de funkos de una categoría. No pasa por ninguna caché.
+     * Si la categoría todavía no tiene contador (por ejemplo importada) lo crea contando sus funkos.
+     *
+     * @param categoryId El identificador de la categoría.
+     * @return El número de funkos, 0 si la categoría no existe.
+     */
+    @Override
+    public long getFunkoCount(UUID categoryId) {
+        Optional<Long> count = funkoCountRepository.findFunkoCount(categoryId);
+        if (count.isPresent()) {
+            return count.get();
+        }
+        createFunkoCount(categoryId);
+        return funkoCountRepository.findFunkoCount(categoryId).orElse(0L);
+    }
+
+    /**
+     * Devuelve el número de funkos de varias categorías en una sola consulta.
+     *
+     * @param categoryIds Los identificadores de las categorías.
+     * @return El número de funkos de cada categoría que tiene contador.
+     */
+    @Override
+    public Map<UUID, Long> getFunkoCounts(Collection<UUID> categoryIds) {
+        Map<UUID, Long> counts = new HashMap<>();
+        for (CategoryFunkoCount count : funkoCountRepository.findAllById(categoryIds)) {
+            counts.put(count.getCategoryId(), count.getFunkoCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Suma o resta funkos al contador de una categoría. Se llama desde las operaciones que crean,
+     * borran o cambian de categoría un Funko.
+     * El contador está en su propia tabla, así que no hay que invalidar la categoría en ninguna caché.
+     *
+     * @param categoryId El identificador de la categoría.
+     * @param delta Los funkos que se suman (positivo) o restan (negativo).
+     */
+    @Override
+    public void adjustFunkoCount(UUID categoryId, long delta) {
+        logger.debug("Ajustando en {} el número de funkos de la categoría con id: {}", delta, categoryId);
+        if (funkoCountRepository.adjust(categoryId, delta) == 0) {
+            // Categoría sin contador (por ejemplo importada): se crea contando sus funkos confirmados,
+            // que todavía no incluyen este cambio, y se vuelve a ajustar
+            createFunkoCount(categoryId);
+            funkoCountRepository.adjust(categoryId, delta);
+        }
+    }
+
+    private void createFunkoCount(UUID categoryId) {
+        try {
+            funkoCountRepository.insertCounted(categoryId);
+        } catch (DataIntegrityViolationException e) {
+            // Otra transacción lo ha creado a la vez, se usa el suyo
+            logger.debug("El contador de funkos de la categoría con id: {} ya se había creado", categoryId);
+        }
+    }
+
+    /**
+     * Recalcula el número de funkos de todas las categorías a partir de los funkos reales.
+     * Corrige las diferencias que hayan podido quedar, por ejemplo por escrituras que fallaron a medias,
+     * y crea los contadores que falten.
+     *
+     * @return El número de contadores corregidos o creados.
+     */
+    @Override
+    @Transactional
+    public int reconcileFunkoCounts() {
+        return funkoCountRepository.reconcile() + funkoCountRepository.insertMissing();
+    }
+
+    /**
+     * Escribe todas las categorías como un array JSON leyéndolas poco a poco de la base de datos.
+     * Cada categoría se separa del contexto de persistencia en cuanto se lee, así que la memoria usada
+     * no depende del número de categorías.
+     *
+     * @param outputStream El destino del JSON, no se cierra.
+     * @return El número de categorías exportadas.
+     * @throws IOException Si falla la escritura.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCategories(OutputStream outputStream) throws IOException {
+        logger.info("Exportando todas las categorías");
+        try (Stream<Category> categories = categoryRepository.streamAll()) {
+            // Solo se leen campos ya cargados, se puede separar antes de escribirla
+            return categoryJsonStorage.writeCategories(outputStream, categories.peek(entityManager::detach));
+        }
+    }
+
+    /**
+     * Busca y devuelve una categoría por su nombre, sin distinguir mayúsculas y minúsculas.
+     * Se busca primero en el índice de nombres en memoria y solo si no está se consulta la base de datos.
      *
      * @param name El nombre de la categoría.
      * @return La categoría con el nombre especificado.
@@ -184,10 +311,71 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public Category findByName(String name) {
         logger.info("Buscando las categorías con nombre: {}", name);
-        Optional<Category> result = categoryRepository.findByName(name);
-        if (result.isPresent()) {
-            return result.get();
-        } else throw new CategoryDoesNotExistException("Categoría no encontrada para el nombre: " + name);
+        return findSnapshotByName(name)
+                .map(CategoryMapper::fromSnapshot) // Copia propia, separada de la base de datos
+                // Se lanza muchas veces (por ejemplo al importar), sin traza es mucho más barata
+                .orElseThrow(() -> CategoryDoesNotExistException.cachedMiss("Categoría no encontrada para el nombre: " + name));
+    }
+
+    /**
+     * Busca una categoría por su nombre en el índice en memoria. Si no está (por ejemplo porque se ha creado
+     * desde otra instancia) se busca en la base de datos y se añade al índice.
+     *
+     * @param name El nombre de la categoría.
+     * @return La instantánea de la categoría o un Optional vacío si no existe.
+     */
+    private Optional<CategorySnapshot> findSnapshotByName(String name) {
+        if (name == null) return Optional.empty();
+        String normalizedName = normalizeName(name);
+        CategorySnapshot indexed = categoriesByName.getIfPresent(normalizedName);
+        if (indexed != null) return Optional.of(indexed);
+        if (negativeLookups.isKnownMiss(NEGATIVE_NAME_LOOKUP, normalizedName)) { // Ya se ha buscado hace poco y no existía
+            return Optional.empty();
+        }
+        Optional<Category> result = categoryRepository.findFirstByNameIgnoreCase(name);
+        if (result.isEmpty()) {
+            negativeLookups.recordMiss(NEGATIVE_NAME_LOOKUP, normalizedName);
+            return Optional.empty();
+        }
+        indexByName(null, result.get());
+        return result.map(CategoryMapper::toSnapshot);
+    }
+
+    /**
+     * Actualiza el índice de nombres con una categoría guardada.
+     *
+     * @param previousName El nombre que tenía la categoría antes de guardarla, null si es nueva.
+     * @param category La categoría guardada.
+     */
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, o en el momento si no hay ninguna.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void indexByName(String previousName, Category category) {
+        if (previousName != null) {
+            categoriesByName.invalidate(normalizeName(previousName));
+        }
+        categoriesByName.put(normalizeName(category.getName()), CategoryMapper.toSnapshot(category));
+    }
+
+    private void removeFromNameIndex(String name) {
+        categoriesByName.invalidate(normalizeName(name));
+    }
+
+    static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -5,10 +5,17 @@ import com.example.funko.category.model.Category;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.stream.Stream;
 
 public interface CategoryJsonStorage {
     Flux<InputCategory> getCategoriesFromFile(File file);
 
-    void saveCategoriesToFile(File file, List<Category> categories);
+    Flux<InputCategory> getCategoriesFromStream(InputStream inputStream);
+
+    long writeCategories(OutputStream outputStream, Stream<Category> categories) throws IOException;
+
+    long saveCategoriesToFile(File file, Stream<Category> categories) throws IOException;
 }
@@ -3,20 +3,42 @@ package com.example.funko.category.storage.json;
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.mapper.CategoryMapper;
 import com.example.funko.category.model.Category;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class CategoryJsonStorageImpl implements CategoryJsonStorage{
-    
+
+    private final Logger logger = LoggerFactory.getLogger(CategoryJsonStorageImpl.class);
+    // Se ignoran los campos desconocidos para poder importar los ficheros exportados, que tienen más campos
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     /**
      * Este método lee un archivo JSON y devuelve un Flux de objetos de la categoría.
+     * El archivo se lee en streaming: cada categoría se emite en cuanto se lee y solo se leen
+     * las que pide el suscriptor, de modo que la memoria no depende del tamaño del archivo.
      *
      * @param file El archivo JSON que se va a leer. El archivo debe contener un array de objetos JSON,
      *             cada uno representando una categoría.
@@ -25,24 +47,118 @@ public class CategoryJsonStorageImpl implements CategoryJsonStorage{
      */
     @Override
     public Flux<InputCategory> getCategoriesFromFile(File file) {
+        return readCategories(() -> new FileInputStream(file));
+    }
+
+    /**
+     * Igual que {@link #getCategoriesFromFile(File)} pero leyendo de un stream, por ejemplo un recurso del classpath
+     * o un fichero subido. El stream se cierra al terminar o al cancelar, así que el Flux solo se puede suscribir una vez.
+     *
+     * @param inputStream El stream con el array JSON de categorías.
+     * @return Un Flux de objetos de la categoría.
+     */
+    @Override
+    public Flux<InputCategory> getCategoriesFromStream(InputStream inputStream) {
+        return readCategories(() -> inputStream);
+    }
+
+    /**
+     * Escribe las categorías como un array JSON a medida que se leen del Stream, sin tenerlas todas en memoria.
+     * No cierra el OutputStream.
+     *
+     * @param outputStream El destino del JSON.
+     * @param categories Las categorías, normalmente un Stream del repositorio.
+     * @return El número de categorías escritas.
+     * @throws IOException Si falla la escritura.
+     */
+    @Override
+    public long writeCategories(OutputStream outputStream, Stream<Category> categories) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartArray();
+            Iterator<Category> iterator = categories.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(CategoryMapper.toOutputCategory(iterator.next()));
+                written++;
+            }
+            generator.writeEndArray();
+        }
+        return written;
+    }
+
+    /**
+     * Guarda las categorías en un fichero JSON, comprimido con gzip si el nombre termina en .gz.
+     *
+     * @param file El fichero en el que se guardan.
+     * @param categories Las categorías, normalmente un Stream del repositorio.
+     * @return El número de categorías escritas.
+     * @throws IOException Si falla la escritura.
+     */
+    @Override
+    public long saveCategoriesToFile(File file, Stream<Category> categories) throws IOException {
+        try (OutputStream outputStream = openForWriting(file)) {
+            return writeCategories(outputStream, categories);
+        }
+    }
+
+    private OutputStream openForWriting(File file) throws IOException {
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        return file.getName().endsWith(".gz") ? new GZIPOutputStream(outputStream) : outputStream;
+    }
+
+    private Flux<InputCategory> readCategories(Callable<InputStream> source) {
         return Flux.create(fluxSink -> {
-                try{
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    JsonNode list = objectMapper.readTree(file);
-                    if (list.isArray()) {
-                        for (JsonNode node : list) {
-                            InputCategory category = objectMapper.treeToValue(node, InputCategory.class);
-                            fluxSink.next(category);
-                        }
-                    }
-                } catch (IOException e){
-                    fluxSink.error(e);
+            JsonParser parser;
+            try {
+                parser = objectMapper.createParser(source.call());
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.close();
+                    fluxSink.error(new IOException("El JSON de categorías debe ser un array"));
+                    return;
                 }
+            } catch (Exception e) {
+                fluxSink.error(e);
+                return;
+            }
+            AtomicInteger wip = new AtomicInteger();
+            fluxSink.onDispose(() -> close(parser));
+            // Se lee del fichero solo cuando el suscriptor pide más elementos
+            fluxSink.onRequest(n -> drain(parser, fluxSink, wip));
         });
     }
 
-    @Override
-    public void saveCategoriesToFile(File file, List<Category> categories) {
-        // TODO
+    /**
+     * Emite categorías mientras el suscriptor tenga demanda pendiente.
+     * Solo un hilo lee del parser a la vez: si llega otra petición mientras se está leyendo
+     * (por ejemplo desde el propio onNext del suscriptor) se apunta en wip y la atiende el hilo que ya está leyendo.
+     */
+    private void drain(JsonParser parser, FluxSink<InputCategory> fluxSink, AtomicInteger wip) {
+        if (wip.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            try {
+                while (fluxSink.requestedFromDownstream() > 0 && !fluxSink.isCancelled()) {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        fluxSink.complete();
+                        return;
+                    }
+                    fluxSink.next(parser.readValueAs(InputCategory.class));
+                }
+            } catch (IOException e) {
+                fluxSink.error(e);
+                return;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void close(JsonParser parser) {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            logger.warn("Error al cerrar el fichero JSON de categorías", e);
+        }
     }
 }
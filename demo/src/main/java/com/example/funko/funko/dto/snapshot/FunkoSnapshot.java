@@ -0,0 +1,23 @@
+package com.example.funko.funko.dto.snapshot;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Instantánea inmutable de un Funko para guardar en caché.
+ * La categoría se guarda desnormalizada (id y nombre) para no arrastrar el proxy perezoso de JPA.
+ */
+public record FunkoSnapshot(
+        long id,
+        String name,
+        double price,
+        int stock,
+        LocalDate releaseDate,
+        UUID categoryId,
+        String categoryName,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) implements Serializable {
+}
@@ -4,4 +4,9 @@ public class FunkoException extends RuntimeException {
     public FunkoException(String message) {
         super(message);
     }
+
+    // Sin traza, para las excepciones que se lanzan muchas veces y no indican un error del servidor
+    protected FunkoException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
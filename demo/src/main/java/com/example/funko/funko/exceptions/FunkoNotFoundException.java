@@ -8,4 +8,15 @@ public class FunkoNotFoundException extends FunkoException {
     public FunkoNotFoundException(String message) {
         super(message);
     }
+
+    private FunkoNotFoundException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+
+    /**
+     * Excepción para una búsqueda que ya se sabe que falla: no captura la traza, que es lo más caro de crear una excepción.
+     */
+    public static FunkoNotFoundException cachedMiss(String message) {
+        return new FunkoNotFoundException(message, false);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.funko.funko.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class FunkoOutOfStockException extends FunkoException {
+    public FunkoOutOfStockException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.funko.funko.mapper;
 
+import com.example.funko.category.model.Category;
 import com.example.funko.funko.dto.input.InputFunko;
 import com.example.funko.funko.dto.output.OutputFunko;
+import com.example.funko.funko.dto.snapshot.FunkoSnapshot;
 import com.example.funko.funko.model.Funko;
 /**
  * Esta clase proporciona métodos para mapear objetos Funko y OutputFunko.
@@ -39,4 +41,48 @@ public class FunkoMapper {
                .category(funko.getCategory().getName())
                .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Convierte un Funko en una instantánea inmutable para guardarla en caché.
+     *
+     * @param funko El Funko que se va a convertir, con su categoría accesible.
+     * @return La instantánea con la categoría desnormalizada a id y nombre.
+     */
+    public static FunkoSnapshot toSnapshot(Funko funko) {
+        Category category = funko.getCategory();
+        return new FunkoSnapshot(
+                funko.getId(),
+                funko.getName(),
+                funko.getPrice(),
+                funko.getStock(),
+                funko.getReleaseDate(),
+                category != null ? category.getId() : null,
+                category != null ? category.getName() : null,
+                funko.getCreatedAt(),
+                funko.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Reconstruye un Funko separado de la base de datos a partir de su instantánea.
+     * La categoría solo lleva el id y el nombre.
+     *
+     * @param snapshot La instantánea guardada en caché.
+     * @return Un Funko nuevo con los datos de la instantánea.
+     */
+    public static Funko fromSnapshot(FunkoSnapshot snapshot) {
+        Category category = new Category();
+        category.setId(snapshot.categoryId());
+        category.setName(snapshot.categoryName());
+        Funko funko = new Funko();
+        funko.setId(snapshot.id());
+        funko.setName(snapshot.name());
+        funko.setPrice(snapshot.price());
+        funko.setStock(snapshot.stock());
+        funko.setReleaseDate(snapshot.releaseDate());
+        funko.setCategory(category);
+        funko.setCreatedAt(snapshot.createdAt());
+        funko.setUpdatedAt(snapshot.updatedAt());
+        return funko;
+    }
+}
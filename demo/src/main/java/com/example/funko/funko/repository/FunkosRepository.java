@@ -1,10 +1,18 @@
 package com.example.funko.funko.repository;
 
 import com.example.funko.funko.model.Funko;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -12,4 +20,28 @@ public interface FunkosRepository extends JpaRepository<Funko,Long>, JpaSpecific
 
     List<Funko> findByName(String name);
 
+    // Trae la categoría en la misma consulta para poder cachear el Funko fuera de la sesión
+    @Override
+    @EntityGraph(attributePaths = {"category"})
+    Optional<Funko> findById(Long id);
+
+    // Todos los funkos de un pedido en una sola consulta, con su categoría
+    @EntityGraph(attributePaths = {"category"})
+    List<Funko> findAllByIdIn(Collection<Long> ids);
+
+    // Descuenta el stock solo si quedan unidades suficientes, comprobándolo en la misma sentencia.
+    // Incrementa la versión, así una edición que haya leído el Funko antes no pisa el stock nuevo.
+    // Devuelve 0 si no se ha descontado (no existe o no hay stock), así dos pedidos a la vez no pueden vender de más.
+    // Una cantidad negativa pasaría la comprobación y sumaría stock, así que tampoco se descuenta
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Funko f set f.stock = f.stock - :amount, f.updatedAt = local datetime where f.id = :id and :amount > 0 and f.stock >= :amount")
+    int decrementStock(@Param("id") Long id, @Param("amount") int amount);
+
+    // Devuelve unidades al stock, para deshacer un descuento
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Funko f set f.stock = f.stock + :amount, f.updatedAt = local datetime where f.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("amount") int amount);
+
 }
@@ -0,0 +1,35 @@
+package com.example.funko.funko.services;
+
+import com.example.cache.config.CacheRefreshLoader;
+import com.example.funko.funko.mapper.FunkoMapper;
+import com.example.funko.funko.repository.FunkosRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refresca en segundo plano las entradas de la caché de funkos (refresh-after-write).
+ * Mientras se recarga se sigue sirviendo el valor anterior. Si el Funko ya no existe la entrada se borra.
+ */
+@Component
+public class FunkoCacheRefreshLoader implements CacheRefreshLoader {
+
+    private final FunkosRepository repository;
+
+    @Autowired
+    public FunkoCacheRefreshLoader(FunkosRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String cacheName() {
+        return "funkos";
+    }
+
+    @Override
+    public Object load(Object key) {
+        // En la caché se guardan instantáneas, no entidades
+        return repository.findById((Long) key)
+                .map(FunkoMapper::toSnapshot)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.funko.funko.services;
+
+import com.example.cache.warmup.CacheWarmUpLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Precarga la caché de funkos llamando a FunkoService.findById, que es quien guarda el Funko en caché.
+ */
+@Component
+public class FunkoCacheWarmUpLoader implements CacheWarmUpLoader {
+
+    private final FunkoService service;
+
+    @Autowired
+    public FunkoCacheWarmUpLoader(FunkoService service) {
+        this.service = service;
+    }
+
+    @Override
+    public String cacheName() {
+        return "funkos";
+    }
+
+    @Override
+    public Object parseKey(String key) {
+        return Long.valueOf(key);
+    }
+
+    @Override
+    public void load(Object key) {
+        service.findById((Long) key);
+    }
+}
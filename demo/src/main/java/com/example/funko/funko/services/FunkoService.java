@@ -6,6 +6,8 @@ import com.example.funko.funko.model.Funko;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FunkoService {
@@ -17,6 +19,12 @@ public interface FunkoService {
 
     Funko delete(Long id);
 
+    List<Funko> reserveStock(Map<Long, Integer> amounts);
+
+    void releaseStock(Map<Long, Integer> amounts);
+
+    List<StockReservation> reserveStockForEach(List<Map<Long, Integer>> requests);
+
     Page<Funko> findAll(
         Pageable pageable,
         Optional<String> category,
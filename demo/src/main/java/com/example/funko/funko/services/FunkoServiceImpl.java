@@ -1,11 +1,13 @@
 package com.example.funko.funko.services;
 
+import com.example.cache.negative.NegativeLookupCache;
 import com.example.funko.category.exceptions.CategoryDoesNotExistException;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.service.CategoryService;
 import com.example.funko.funko.dto.input.InputFunko;
 import com.example.funko.funko.dto.output.OutputFunko;
 import com.example.funko.funko.exceptions.FunkoNotFoundException;
+import com.example.funko.funko.exceptions.FunkoOutOfStockException;
 import com.example.funko.funko.mapper.FunkoMapper;
 import com.example.funko.funko.model.Funko;
 import com.example.funko.funko.repository.FunkosRepository;
@@ -19,6 +21,9 @@ import jakarta.persistence.criteria.Join;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -27,9 +32,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 
 /**
@@ -42,9 +60,15 @@ import java.util.Optional;
 @CacheConfig(cacheNames = {"funkos"})
 public class FunkoServiceImpl implements FunkoService {
 
+    // Búsquedas por id sin resultado en la caché negativa
+    static final String NEGATIVE_LOOKUP = "funkos";
+
     private final Logger logger = LoggerFactory.getLogger(FunkoServiceImpl.class);
     private final FunkosRepository repository;
     private final CategoryService categoryService;
+    private final NegativeLookupCache negativeLookups;
+    private final CacheManager cacheManager;
+    private final OptimisticLockRetry optimisticLockRetry;
     private final WebSocketConfig webSocketConfig;
     private WebSocketHandler webSocketService;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -56,16 +80,25 @@ public class FunkoServiceImpl implements FunkoService {
      *
      * @param repository       El repositorio FunkosRepository para interactuar con la base de datos de Funko.
      * @param categoryService El servicio CategoryService para trabajar con la identidad Categoría.
+     * @param negativeLookups La caché de ids que no existen.
+     * @param cacheManager El gestor de cachés, para invalidar los funkos modificados en bloque.
+     * @param optimisticLockRetry Los reintentos de las modificaciones que chocan con otra petición.
      */
     @Autowired
     public FunkoServiceImpl(
             FunkosRepository repository,
             CategoryService categoryService,
+            NegativeLookupCache negativeLookups,
+            CacheManager cacheManager,
+            OptimisticLockRetry optimisticLockRetry,
             WebSocketConfig config,
-            WebSocketHandler handler
+            @Qualifier("webSocketFunkosHandler") WebSocketHandler handler
     ) {
         this.repository = repository;
         this.categoryService = categoryService;
+        this.negativeLookups = negativeLookups;
+        this.cacheManager = cacheManager;
+        this.optimisticLockRetry = optimisticLockRetry;
         this.webSocketConfig = config;
         this.webSocketService = webSocketConfig.webSocketFunkosHandler();
         mapper.registerModule(new JavaTimeModule());
@@ -78,10 +111,18 @@ public class FunkoServiceImpl implements FunkoService {
      * @return El Funko con el ID dado, o lanza una FunkoNotFoundException si no se encuentra.
      */
     @Override
-    @Cacheable
+    @Cacheable(sync = true) // Solo una carga por id a la vez, el resto espera a esa carga
     public Funko findById(Long id) {
         logger.info("Buscando el funko con id: {}", id);
-        return repository.findById(id).orElseThrow(() -> new FunkoNotFoundException("Funko no encontrado para el id: " + id));
+        if (negativeLookups.isKnownMiss(NEGATIVE_LOOKUP, id)) { // Ya se ha buscado hace poco y no existía
+            throw FunkoNotFoundException.cachedMiss("Funko no encontrado para el id: " + id);
+        }
+        Optional<Funko> result = repository.findById(id);
+        if (result.isEmpty()) {
+            negativeLookups.recordMiss(NEGATIVE_LOOKUP, id);
+            throw new FunkoNotFoundException("Funko no encontrado para el id: " + id);
+        }
+        return result.get();
     }
 
     /**
@@ -92,6 +133,7 @@ public class FunkoServiceImpl implements FunkoService {
      * @throws CategoryDoesNotExistException Si la categoría del Funko no existe en la base de datos.
      */
     @Override
+    @Transactional
     @CachePut(key = "#result.id")
     public Funko save(InputFunko funko) {
         logger.info("Guardando el funko: {}", funko);
@@ -107,7 +149,10 @@ public class FunkoServiceImpl implements FunkoService {
                 Notification.Tipo.CREATE,
                 fullFunko
                 );
-        return repository.save(fullFunko);
+        Funko savedFunko = repository.save(fullFunko);
+        categoryService.adjustFunkoCount(category.getId(), 1);
+        negativeLookups.forget(NEGATIVE_LOOKUP, savedFunko.getId()); // Por si se había buscado antes de existir
+        return savedFunko;
     }
 
     /**
@@ -122,19 +167,31 @@ public class FunkoServiceImpl implements FunkoService {
     @CachePut(key = "#id")
     public Funko update(Long id, InputFunko updatedFunko) {
         logger.info("Actualizando el funko con id: {}, nuevo valor: {}", id, updatedFunko);
+        // Se reintenta si otra petición modifica el Funko a la vez, cada intento vuelve a leerlo
+        return optimisticLockRetry.execute("update", () -> applyUpdate(id, updatedFunko));
+    }
+
+    private Funko applyUpdate(Long id, InputFunko updatedFunko) {
         Optional<Funko> result = repository.findById(id);
         if (result.isPresent()) {
             Funko existingFunko = result.get();
+            UUID previousCategoryId = existingFunko.getCategory().getId();
             existingFunko.setName(updatedFunko.getName());
             existingFunko.setPrice(updatedFunko.getPrice());
             existingFunko.setReleaseDate(updatedFunko.getReleaseDate());
             existingFunko.setUpdatedAt(LocalDateTime.now());
             Funko validFunko = findCategoryInsideFunkoAndUpdateIt(existingFunko, updatedFunko.getCategory());
-            onChange( // Manda la notificación
+            Funko savedFunko = repository.save(validFunko);
+            UUID newCategoryId = savedFunko.getCategory().getId();
+            if (!Objects.equals(previousCategoryId, newCategoryId)) { // Ha cambiado de categoría
+                categoryService.adjustFunkoCount(previousCategoryId, -1);
+                categoryService.adjustFunkoCount(newCategoryId, 1);
+            }
+            afterCommit(() -> onChange( // Manda la notificación solo del intento que se confirma
                     Notification.Tipo.UPDATE,
-                    existingFunko
-            );
-            return repository.save(validFunko);
+                    savedFunko
+            ));
+            return savedFunko;
         } else throw new FunkoNotFoundException("Funko no encontrado para el id: " + id);
     }
 
@@ -149,17 +206,131 @@ public class FunkoServiceImpl implements FunkoService {
     @CacheEvict(key = "#id")
     public Funko delete(Long id) {
         logger.info("Eliminando el funko con id: {}",id);
+        return optimisticLockRetry.execute("delete", () -> applyDelete(id));
+    }
+
+    private Funko applyDelete(Long id) {
         Optional<Funko> result = repository.findById(id);
         if (result.isPresent()) {
-            repository.deleteById(id);
-            onChange( // Manda la notificación
+            repository.delete(result.get()); // Comprueba la versión leída
+            categoryService.adjustFunkoCount(result.get().getCategory().getId(), -1);
+            afterCommit(() -> onChange( // Manda la notificación
                     Notification.Tipo.DELETE,
                     result.get()
-            );
+            ));
             return result.get();
         } else throw new FunkoNotFoundException("Funko no encontrado para el id: " + id);
     }
 
+    /**
+     * Descuenta el stock de varios Funkos a la vez, por ejemplo el de todas las líneas de un pedido.
+     * Cada descuento es un update condicional que solo se aplica si queda stock suficiente, así que dos pedidos
+     * concurrentes no pueden vender las mismas unidades. Si alguna línea falla se deshace la transacción entera,
+     * también los descuentos de las líneas anteriores.
+     * Después de confirmar se invalidan sus entradas de la caché y se manda una notificación por cada uno.
+     *
+     * @param amounts Las unidades a descontar por id de Funko.
+     * @return Los Funkos con el stock ya descontado.
+     * @throws FunkoNotFoundException Si alguno de los Funkos no existe.
+     * @throws FunkoOutOfStockException Si alguno de los Funkos no tiene stock suficiente.
+     */
+    @Override
+    @Transactional
+    public List<Funko> reserveStock(Map<Long, Integer> amounts) {
+        logger.info("Reservando stock de {} funkos", amounts.size());
+        // Siempre en el mismo orden, para que dos pedidos con los mismos Funkos no se bloqueen entre sí
+        for (Long id : new TreeSet<>(amounts.keySet())) {
+            if (repository.decrementStock(id, amounts.get(id)) == 0) {
+                if (!repository.existsById(id)) {
+                    throw new FunkoNotFoundException("Funko no encontrado para el id: " + id);
+                }
+                throw new FunkoOutOfStockException("No hay suficientes funkos con id: " + id);
+            }
+        }
+        List<Funko> funkos = repository.findAllByIdIn(amounts.keySet());
+        afterCommit(() -> {
+            evict(amounts.keySet());
+            onChange(Notification.Tipo.UPDATE, funkos);
+        });
+        return funkos;
+    }
+
+    /**
+     * Devuelve al stock las unidades reservadas con {@link #reserveStock(Map)}, por ejemplo cuando
+     * no se ha podido guardar el pedido.
+     *
+     * @param amounts Las unidades a devolver por id de Funko.
+     */
+    @Override
+    @Transactional
+    public void releaseStock(Map<Long, Integer> amounts) {
+        logger.info("Devolviendo el stock de {} funkos", amounts.size());
+        for (Long id : new TreeSet<>(amounts.keySet())) {
+            repository.incrementStock(id, amounts.get(id));
+        }
+        List<Funko> funkos = repository.findAllByIdIn(amounts.keySet());
+        afterCommit(() -> {
+            evict(amounts.keySet());
+            onChange(Notification.Tipo.UPDATE, funkos);
+        });
+    }
+
+    /**
+     * Reserva el stock de varios pedidos en una sola transacción, por ejemplo un lote de pedidos encolados.
+     * Cada pedido se reserva entero o no se reserva: si una de sus líneas no tiene stock se devuelven
+     * las unidades que ya se le habían descontado y se sigue con el siguiente, sin afectar al resto del lote.
+     *
+     * @param requests Las unidades a descontar por id de Funko de cada pedido.
+     * @return El resultado de cada pedido, en el mismo orden.
+     */
+    @Override
+    @Transactional
+    public List<StockReservation> reserveStockForEach(List<Map<Long, Integer>> requests) {
+        logger.info("Reservando stock de un lote de {} pedidos", requests.size());
+        List<String> errors = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        for (Map<Long, Integer> amounts : requests) {
+            String error = tryDecrement(amounts);
+            errors.add(error);
+            if (error == null) ids.addAll(amounts.keySet());
+        }
+        Map<Long, Funko> funkos = ids.isEmpty() ? Map.of() : repository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Funko::getId, funko -> funko));
+
+        List<StockReservation> reservations = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            reservations.add(errors.get(i) == null
+                    ? StockReservation.reserved(funkos)
+                    : StockReservation.rejected(errors.get(i)));
+        }
+        if (!ids.isEmpty()) {
+            afterCommit(() -> {
+                evict(ids);
+                onChange(Notification.Tipo.UPDATE, List.copyOf(funkos.values()));
+            });
+        }
+        return reservations;
+    }
+
+    /**
+     * Descuenta las unidades de un pedido línea a línea y, si alguna falla, devuelve las ya descontadas.
+     *
+     * @return null si se ha descontado todo o el motivo por el que no se ha podido.
+     */
+    private String tryDecrement(Map<Long, Integer> amounts) {
+        List<Long> applied = new ArrayList<>();
+        for (Long id : new TreeSet<>(amounts.keySet())) {
+            if (repository.decrementStock(id, amounts.get(id)) == 0) {
+                applied.forEach(done -> repository.incrementStock(done, amounts.get(done)));
+                return repository.existsById(id)
+                        ? "No hay suficientes funkos con id: " + id
+                        : "Funko no encontrado para el id: " + id;
+            }
+            applied.add(id);
+        }
+        return null;
+    }
+
     /**
      * Busca todos los Funkos.
      *
@@ -220,31 +391,70 @@ public class FunkoServiceImpl implements FunkoService {
         return funko;
     }
 
+    /**
+     * Ejecuta la acción al confirmar la transacción actual, o en el momento si no hay ninguna.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void evict(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache("funkos");
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
     void onChange(Notification.Tipo tipo, Funko data) {
         logger.debug("Servicio de productos onChange con tipo: {} y datos: {}",tipo,data);
+        send(List.of(notification(tipo, data)));
+    }
 
+    // Los Funkos modificados en bloque: una notificación por Funko, igual que el resto de cambios,
+    // para que los clientes siempre reciban un solo Funko en data. Se envían todas desde el mismo hilo
+    void onChange(Notification.Tipo tipo, List<Funko> data) {
+        logger.debug("Servicio de productos onChange con tipo: {} y {} funkos",tipo,data.size());
+        send(data.stream().map(funko -> notification(tipo, funko)).toList());
+    }
+
+    private Notification<OutputFunko> notification(Notification.Tipo tipo, Funko data) {
+        return new Notification<>(
+                "FUNKOS",
+                tipo,
+                FunkoMapper.toOutputFunko(data),
+                LocalDateTime.now().toString()
+        );
+    }
+
+    private void send(List<Notification<OutputFunko>> notificaciones) {
         if (webSocketService == null) {
             logger.warn("No se ha podido enviar la notificación a los clientes ws, no se ha encontrado el servicio");
             webSocketService = this.webSocketConfig.webSocketFunkosHandler();
         }
 
         try {
+            List<String> messages = new ArrayList<>(notificaciones.size());
+            for (Notification<OutputFunko> notificacion : notificaciones) {
+                messages.add(mapper.writeValueAsString(notificacion));
+            }
 
-            Notification<OutputFunko> notificacion = new Notification<>(
-                    "FUNKOS",
-                    tipo,
-                    FunkoMapper.toOutputFunko(data),
-                    LocalDateTime.now().toString()
-            );
-
-            String json = mapper.writeValueAsString((notificacion));
-
-            logger.info("Enviando mensaje a los clientes ws");
+            logger.info("Enviando {} mensajes a los clientes ws", messages.size());
             // Enviamos el mensaje a los clientes ws con un hilo, si hay muchos clientes, puede tardar
             // no bloqueamos el hilo principal que atiende las peticiones http
             Thread senderThread = new Thread(() -> {
                 try {
-                    webSocketService.sendMessage(json);
+                    for (String json : messages) {
+                        webSocketService.sendMessage(json);
+                    }
                 } catch (Exception e) {
                     logger.error("Error al enviar el mensaje a través del servicio WebSocket", e);
                 }
@@ -0,0 +1,104 @@
+package com.example.funko.funko.services;
+
+import com.example.funko.funko.exceptions.FunkoUpdateConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una modificación de Funkos en su propia transacción y la repite si otra petición
+ * ha modificado el mismo Funko a la vez (conflicto de @Version).
+ * Entre intentos espera un tiempo aleatorio que crece con cada intento (full jitter), para que
+ * las peticiones que chocan no vuelvan a chocar al reintentar a la vez.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private final Logger logger = LoggerFactory.getLogger(OptimisticLockRetry.class);
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    @Autowired
+    public OptimisticLockRetry(
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${funkos.update-retry.max-attempts:3}") int maxAttempts,
+            @Value("${funkos.update-retry.initial-backoff:20ms}") Duration initialBackoff,
+            @Value("${funkos.update-retry.max-backoff:200ms}") Duration maxBackoff
+    ) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Ejecuta la acción en una transacción y la reintenta si falla por un conflicto de versión.
+     * Si ya hay una transacción en curso no se reintenta: sus entidades están desactualizadas y
+     * la decisión de repetir le corresponde a quien abrió la transacción.
+     *
+     * @param operation El nombre de la operación, para las métricas y los logs.
+     * @param action La modificación, tiene que volver a leer los Funkos en cada intento.
+     * @return Lo que devuelva la acción.
+     * @throws FunkoUpdateConflictException Si sigue habiendo conflicto después del último intento.
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                counter("funkos.optimistic.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("funkos.optimistic.exhausted", operation).increment();
+                    logger.warn("Conflicto de versión en {} después de {} intentos", operation, attempt);
+                    throw new FunkoUpdateConflictException("El funko se ha modificado a la vez desde otra petición, inténtalo de nuevo");
+                }
+                counter("funkos.optimistic.retries", operation).increment();
+                logger.debug("Conflicto de versión en {}, reintento {} de {}", operation, attempt, maxAttempts - 1);
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    /**
+     * Espera aleatoria entre 0 y initialBackoff * 2^(intento - 1), con maxBackoff como máximo.
+     */
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FunkoUpdateConflictException("Reintento interrumpido");
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
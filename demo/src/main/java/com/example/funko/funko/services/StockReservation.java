@@ -0,0 +1,26 @@
+package com.example.funko.funko.services;
+
+import com.example.funko.funko.model.Funko;
+
+import java.util.Map;
+
+/**
+ * Resultado de reservar el stock de un pedido dentro de un lote.
+ *
+ * @param funkos Los Funkos del lote por id, con su precio, solo si se ha reservado.
+ * @param error El motivo por el que no se ha reservado, null si se ha reservado.
+ */
+public record StockReservation(Map<Long, Funko> funkos, String error) {
+
+    public static StockReservation reserved(Map<Long, Funko> funkos) {
+        return new StockReservation(funkos, null);
+    }
+
+    public static StockReservation rejected(String error) {
+        return new StockReservation(Map.of(), error);
+    }
+
+    public boolean isReserved() {
+        return error == null;
+    }
+}
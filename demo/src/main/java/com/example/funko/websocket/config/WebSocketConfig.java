@@ -17,6 +17,7 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(webSocketFunkosHandler(), "/ws" + "/funkos");
+        registry.addHandler(webSocketOrdersHandler(), "/ws" + "/orders");
     }
 
     // Cada uno de los handlers como bean para que cada vez que nos atienda
@@ -25,4 +26,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
         return new WebSocketHandler("Funkos");
     }
 
+    @Bean
+    public WebSocketHandler webSocketOrdersHandler() {
+        return new WebSocketHandler("Orders");
+    }
+
 }
\ No newline at end of file
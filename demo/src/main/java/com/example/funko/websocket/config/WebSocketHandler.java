@@ -1,7 +1,6 @@
 package com.example.funko.websocket.config;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
@@ -74,11 +73,12 @@ public class WebSocketHandler extends TextWebSocketHandler implements SubProtoco
     }
 
     /**
-     * Envía mensajes periódicos a los clientes conectados para que sepan que el servidor sigue vivo
+     * Envía mensajes periódicos a los clientes conectados para que sepan que el servidor sigue vivo.
+     * No se programa: con @EnableScheduling se enviaría cada segundo a todas las sesiones,
+     * a la vez que sendMessage sobre la misma sesión, y WebSocketSession no admite envíos concurrentes
      *
      * @throws IOException Error al enviar el mensaje
      */
-    @Scheduled(fixedRate = 1000) // Cada segundo
     @Override
     public void sendPeriodicMessages() throws IOException {
         for (WebSocketSession session : sessions) {
@@ -0,0 +1,72 @@
+package com.example.orders.config;
+
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.FunkoDailySales;
+import com.example.orders.models.IdempotencyRecord;
+import com.example.orders.models.Order;
+import com.example.orders.models.UserMonthlySales;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Crea al arrancar los índices declarados en los documentos de pedidos y de ventas acumuladas (@CompoundIndex, @Indexed).
+ * Spring Data ya no los crea solo (auto-index-creation está desactivado por defecto), y así se crean
+ * antes de atender peticiones en lugar de con la primera consulta.
+ * Si el índice ya existe con la misma definición no se hace nada.
+ * Se puede desactivar con orders.indexes.ensure-on-startup=false, por ejemplo en los tests que no tienen Mongo.
+ */
+@Slf4j
+@Configuration
+public class OrderIndexConfig {
+
+    private static final List<Class<?>> DOCUMENTS = List.of(
+            Order.class, FunkoDailySales.class, UserMonthlySales.class, IdempotencyRecord.class, CompactOrder.class
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean ensureOnStartup;
+
+    @Autowired
+    public OrderIndexConfig(
+            MongoTemplate mongoTemplate,
+            @Value("${orders.indexes.ensure-on-startup:true}") boolean ensureOnStartup
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.ensureOnStartup = ensureOnStartup;
+    }
+
+    // Sin Mongo la aplicación arranca igual: los pedidos fallarán, pero el resto de la API funciona
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexesOnStartup() {
+        if (!ensureOnStartup) {
+            log.info("No se crean los índices de pedidos al arrancar (orders.indexes.ensure-on-startup=false)");
+            return;
+        }
+        try {
+            ensureIndexes();
+        } catch (RuntimeException e) {
+            log.error("No se han podido crear los índices de pedidos, se crearán en el próximo arranque", e);
+        }
+    }
+
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> document : DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(document);
+            resolver.resolveIndexFor(document).forEach(index -> {
+                String name = indexOps.ensureIndex(index);
+                log.info("Índice {} de {} creado o ya existente", name, mongoTemplate.getCollectionName(document));
+            });
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.output.CompactStorageStats;
+import com.example.orders.dto.output.OutputCompactMigrationJob;
+import com.example.orders.mappers.CompactOrderMapper;
+import com.example.orders.service.CompactMigrationJob;
+import com.example.orders.service.CompactOrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Migración de los pedidos a la forma compacta y comparación del espacio que ocupan.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/orders/compact")
+public class CompactOrderController {
+
+    private final CompactOrderService service;
+
+    @Autowired
+    public CompactOrderController(CompactOrderService service) {
+        this.service = service;
+    }
+
+    /**
+     * Empieza a copiar en segundo plano todos los pedidos de orders a la forma compacta.
+     * Se puede repetir sin duplicar nada.
+     *
+     * @return Un ResponseEntity 202 con la migración, cuyo progreso se consulta en la URL de la cabecera Location.
+     */
+    @PostMapping("/migration")
+    public ResponseEntity<OutputCompactMigrationJob> migrate() {
+        CompactMigrationJob job = service.startMigration();
+        log.info("Migración " + job.getId() + " de los pedidos a la forma compacta");
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(CompactOrderMapper.toOutputMigrationJob(job));
+    }
+
+    /**
+     * Recupera el progreso de una migración. El tamaño de las dos formas al terminar se consulta en /stats.
+     *
+     * @param id El identificador de la migración.
+     * @return Un ResponseEntity con el estado, los pedidos leídos, copiados y saltados, y el ritmo de la migración.
+     */
+    @GetMapping("/migration/{id}")
+    public ResponseEntity<OutputCompactMigrationJob> getMigration(@PathVariable UUID id) {
+        return ResponseEntity.ok(CompactOrderMapper.toOutputMigrationJob(service.findMigration(id)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<CompactStorageStats> getStats() {
+        return ResponseEntity.ok(service.stats());
+    }
+}
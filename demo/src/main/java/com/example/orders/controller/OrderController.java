@@ -0,0 +1,238 @@
+package com.example.orders.controller;
+
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.dto.output.OrderSummary;
+import com.example.orders.dto.output.OutputOrder;
+import com.example.orders.dto.output.OutputOrderIntake;
+import com.example.orders.mappers.OrderMapper;
+import com.example.orders.service.OrderExportService;
+import com.example.orders.service.OrderIntake;
+import com.example.orders.service.OrderIdempotencyService;
+import com.example.orders.service.OrderIntakeService;
+import com.example.orders.service.OrderService;
+import com.example.utils.CursorPage;
+import com.example.utils.PageResponse;
+import com.example.utils.PaginationLinksUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Maneja las solicitudes HTTP de los pedidos.
+ * El listado se pagina por cursor: cada respuesta trae el cursor de la siguiente página,
+ * que se pasa en el parámetro after, y la cabecera link con la URL de la siguiente página.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/orders")
+public class OrderController {
+
+    private final OrderService service;
+    private final OrderIntakeService intakeService;
+    private final OrderIdempotencyService idempotencyService;
+    private final OrderExportService exportService;
+    private final PaginationLinksUtils paginationLinksUtils;
+
+    @Autowired
+    public OrderController(
+            OrderService service,
+            OrderIntakeService intakeService,
+            OrderIdempotencyService idempotencyService,
+            OrderExportService exportService,
+            PaginationLinksUtils paginationLinksUtils
+    ) {
+        this.service = service;
+        this.intakeService = intakeService;
+        this.idempotencyService = idempotencyService;
+        this.exportService = exportService;
+        this.paginationLinksUtils = paginationLinksUtils;
+    }
+
+    /**
+     * Recupera una página de pedidos.
+     *
+     * @param after El cursor devuelto en la página anterior.
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha.
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @param size El número máximo de pedidos de la página.
+     * @return La página de pedidos.
+     */
+    @GetMapping
+    public ResponseEntity<CursorPage<OutputOrder>> getAllOrders(
+            @RequestParam(required = false) Optional<ObjectId> after,
+            @RequestParam(required = false) Optional<Long> userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request
+    ) {
+        log.info("Buscando pedidos");
+        CursorPage<OutputOrder> page = service.findAll(after, userId, from, to, size)
+                .map(OrderMapper::toOutputOrder);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            // La query de la petición ya viene codificada, no se vuelve a codificar (el cursor solo tiene hexadecimales)
+            String next = ServletUriComponentsBuilder.fromRequest(request)
+                    .replaceQueryParam("after", page.nextCursor())
+                    .build(true).toUriString();
+            response.header("link", "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Recupera el historial de pedidos de un usuario, del más reciente al más antiguo.
+     *
+     * @param userId El id del usuario.
+     * @param page El número de página.
+     * @param size El tamaño de la página.
+     * @return La página del historial con los resúmenes de los pedidos.
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<PageResponse<OrderSummary>> getUserHistory(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request
+    ) {
+        log.info("Buscando el historial de pedidos del usuario: " + userId);
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(request.getRequestURL().toString());
+        Page<OrderSummary> pageResult = service.findHistoryByUser(userId, PageRequest.of(page, size));
+        return ResponseEntity.ok()
+                .header("link", paginationLinksUtils.createLinkHeader(pageResult, uriBuilder))
+                .body(PageResponse.of(pageResult, "createdAt", "desc"));
+    }
+
+    /**
+     * Exporta todos los pedidos del filtro en NDJSON, un pedido por línea, sin paginar.
+     * La respuesta se escribe a medida que llegan los pedidos de Mongo y al ritmo al que los lee el cliente,
+     * sin ocupar un hilo del servidor mientras se espera.
+     *
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha.
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @return Los pedidos.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OutputOrder> exportOrders(
+            @RequestParam(required = false) Optional<Long> userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to
+    ) {
+        log.info("Exportando pedidos");
+        return exportService.streamOrders(userId, from, to).map(OrderMapper::toOutputOrder);
+    }
+
+    /**
+     * Exporta los mismos pedidos que /orders/export pero con el driver bloqueante,
+     * ocupando el hilo de la petición hasta terminar.
+     *
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha.
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @param response La respuesta donde se escriben los pedidos.
+     */
+    @GetMapping(value = "/export/blocking", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrdersBlocking(
+            @RequestParam(required = false) Optional<Long> userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to,
+            HttpServletResponse response
+    ) throws IOException {
+        log.info("Exportando pedidos (bloqueante)");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        long count = exportService.exportOrders(response.getOutputStream(), userId, from, to);
+        log.info("Exportados " + count + " pedidos");
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OutputOrder> getOrderById(@PathVariable ObjectId id) {
+        log.info("Buscando el pedido con id: " + id);
+        return ResponseEntity.ok(OrderMapper.toOutputOrder(service.findById(id)));
+    }
+
+    /**
+     * Crea un pedido. Con la cabecera Idempotency-Key, repetir la petición devuelve el pedido original
+     * (con la cabecera Idempotent-Replayed) en lugar de crear otro.
+     *
+     * @param idempotencyKey La clave de idempotencia elegida por el cliente, opcional.
+     * @param order El pedido.
+     * @return 201 con el pedido creado.
+     */
+    @PostMapping
+    public ResponseEntity<OutputOrder> save(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody InputOrder order
+    ) {
+        log.info("Creando un nuevo pedido");
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(
+                    OrderMapper.toOutputOrder(service.save(order))
+            );
+        }
+        OrderIdempotencyService.Result result = idempotencyService.execute(idempotencyKey, order, () -> service.save(order));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                .body(OrderMapper.toOutputOrder(result.order()));
+    }
+
+    /**
+     * Recibe un pedido para procesarlo en segundo plano, sin esperar al stock ni a Mongo.
+     *
+     * @param order El pedido.
+     * @return 202 con el estado del pedido y su URL en la cabecera Location.
+     */
+    @PostMapping("/intake")
+    public ResponseEntity<OutputOrderIntake> submit(@Valid @RequestBody InputOrder order) {
+        log.info("Recibiendo un pedido en cola");
+        OrderIntake intake = intakeService.submit(order);
+        return ResponseEntity.accepted()
+                .location(URI.create("/orders/intake/" + intake.getId().toHexString()))
+                .body(OrderMapper.toOutputOrderIntake(intake));
+    }
+
+    /**
+     * Consulta el estado de un pedido recibido en cola.
+     *
+     * @param id El id devuelto al recibir el pedido.
+     * @return El estado del pedido.
+     */
+    @GetMapping("/intake/{id}")
+    public ResponseEntity<OutputOrderIntake> getIntake(@PathVariable String id) {
+        return ResponseEntity.ok(OrderMapper.toOutputOrderIntake(intakeService.getIntake(id)));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<OutputOrder> updateOrder(
+            @PathVariable ObjectId id,
+            @Valid @RequestBody InputOrder updatedOrder
+    ) {
+        log.info("Actualizando el pedido con id: " + id);
+        return ResponseEntity.ok(OrderMapper.toOutputOrder(service.update(id, updatedOrder)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<OutputOrder> deleteOrder(@PathVariable ObjectId id) {
+        log.info("Borrando el pedido con id: " + id);
+        return ResponseEntity.ok(OrderMapper.toOutputOrder(service.deleteById(id)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.orders.controller;
+
+import com.example.orders.models.FunkoDailySales;
+import com.example.orders.models.UserMonthlySales;
+import com.example.orders.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Informes de ventas a partir de las ventas acumuladas, sin recorrer los pedidos.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/orders/reports")
+public class SalesReportController {
+
+    private final SalesRollupService service;
+
+    @Autowired
+    public SalesReportController(SalesRollupService service) {
+        this.service = service;
+    }
+
+    /**
+     * Ventas diarias de un Funko entre dos fechas, ambas incluidas.
+     */
+    @GetMapping("/funkos/{funkoId}")
+    public ResponseEntity<List<FunkoDailySales>> getFunkoDailySales(
+            @PathVariable Long funkoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        log.info("Buscando las ventas del funko " + funkoId + " entre " + from + " y " + to);
+        return ResponseEntity.ok(service.findFunkoDailySales(funkoId, from, to));
+    }
+
+    /**
+     * Compras mensuales de un usuario entre dos meses (yyyy-MM), ambos incluidos.
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<List<UserMonthlySales>> getUserMonthlySales(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        log.info("Buscando las compras del usuario " + userId + " entre " + from + " y " + to);
+        return ResponseEntity.ok(service.findUserMonthlySales(userId, from, to));
+    }
+}
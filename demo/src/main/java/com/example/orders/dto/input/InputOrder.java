@@ -2,6 +2,8 @@ package com.example.orders.dto.input;
 
 import com.example.orders.models.Address;
 import com.example.orders.models.OrderLine;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,8 +17,9 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 public class InputOrder {
-    @NotNull(message = "El pedido debe tener al menos una línea de pedido")
-    private List<OrderLine> orderLines;
+    // @Valid para que se comprueben las cantidades de cada línea: el descuento de stock cuenta con que son positivas
+    @NotEmpty(message = "El pedido debe tener al menos una línea de pedido")
+    private List<@Valid OrderLine> orderLines;
     @NotNull(message = "El nombre de usuario no puede ser nulo")
     private Long userId;
     @NotNull
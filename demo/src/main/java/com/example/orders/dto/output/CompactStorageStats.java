@@ -0,0 +1,25 @@
+package com.example.orders.dto.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tamaño de los pedidos en la forma normal (orders) y en la compacta (orders_compact y addresses),
+ * según las estadísticas de almacenamiento de Mongo. Los tamaños son sin comprimir.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CompactStorageStats {
+    private long orders;
+    private long ordersBytes;
+    private long avgOrderBytes;
+    private long compactOrders;
+    private long compactOrdersBytes;
+    private long avgCompactOrderBytes;
+    private long addresses;
+    private long addressesBytes;
+}
@@ -0,0 +1,30 @@
+package com.example.orders.dto.output;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de un pedido para el historial de un usuario, sin las líneas ni la dirección.
+ * Al usarse como proyección de la consulta solo se leen de Mongo estos campos.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSummary {
+    private ObjectId id;
+    private Integer totalItems;
+    private Double total;
+    private LocalDateTime createdAt;
+
+    @JsonProperty("id")
+    public String get_id() {
+        return id.toHexString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.orders.dto.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutputCompactMigrationJob {
+    private String id;
+    private String status;
+    private String error;
+    private Long read;
+    private Long copied;
+    // Ya estaban en la forma compacta con la misma versión o una más nueva
+    private Long skipped;
+    // Archivados mientras se migraban
+    private Long removed;
+    // Pedidos leídos por segundo
+    private Double throughput;
+    private String createdAt;
+    private String startedAt;
+    private String finishedAt;
+}
@@ -0,0 +1,19 @@
+package com.example.orders.dto.output;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutputOrderIntake {
+    // El id del pedido, con el que se puede buscar en /orders/{id} cuando está COMPLETED
+    private String id;
+    private String status;
+    private String error;
+    private String queuedAt;
+    private String processedAt;
+}
@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CompactMigrationInProgressException extends OrderException {
+    public CompactMigrationInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CompactMigrationNotFoundException extends OrderException {
+    public CompactMigrationNotFoundException(String message) {
+        super(message);
+    }
+}
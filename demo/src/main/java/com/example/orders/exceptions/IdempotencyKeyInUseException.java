@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInUseException extends OrderException {
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyReusedException extends OrderException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class OrderArchivedException extends OrderException {
+    public OrderArchivedException(String message) {
+        super(message);
+    }
+}
@@ -4,4 +4,9 @@ public class OrderException extends RuntimeException {
     public OrderException(String message) {
         super(message);
     }
+
+    // Sin traza, para las excepciones que se lanzan muchas veces y no indican un error del servidor
+    protected OrderException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.orders.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIntakeRejectedException extends OrderException {
+    public OrderIntakeRejectedException(String message) {
+        super(message);
+    }
+}
@@ -8,4 +8,15 @@ public class OrderNotFoundException extends OrderException {
     public OrderNotFoundException(String message) {
         super(message);
     }
+
+    private OrderNotFoundException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+
+    /**
+     * Excepción para una búsqueda que ya se sabe que falla: no captura la traza, que es lo más caro de crear una excepción.
+     */
+    public static OrderNotFoundException cachedMiss(String message) {
+        return new OrderNotFoundException(message, false);
+    }
 }
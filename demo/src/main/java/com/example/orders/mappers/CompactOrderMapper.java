@@ -0,0 +1,140 @@
+package com.example.orders.mappers;
+
+import com.example.orders.dto.output.OutputCompactMigrationJob;
+import com.example.orders.models.Address;
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.CompactOrderLine;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.models.StoredAddress;
+import com.example.orders.service.CompactMigrationJob;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+public class CompactOrderMapper {
+    // Bytes del SHA-256 que se usan como id de la dirección, 12 bytes sobran para no tener colisiones
+    private static final int ADDRESS_ID_BYTES = 12;
+
+    // Constructor privado para evitar la instancia de la clase
+    private CompactOrderMapper(){}
+
+    public static CompactOrder toCompactOrder(Order order) {
+        return CompactOrder.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .lines(order.getOrderLines() == null ? null : order.getOrderLines().stream()
+                        .map(CompactOrderMapper::toCompactOrderLine)
+                        .toList())
+                .totalItems(order.getTotalItems())
+                .totalCents(toCents(order.getTotal()))
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .deleted(Boolean.TRUE.equals(order.getIsDeleted()) ? true : null) // null no se guarda
+                .addressId(order.getAddress() == null ? null : addressId(order.getAddress()))
+                .build();
+    }
+
+    public static Order toOrder(CompactOrder compact, Address address) {
+        return Order.builder()
+                .id(compact.getId())
+                .userId(compact.getUserId())
+                .orderLines(compact.getLines() == null ? null : compact.getLines().stream()
+                        .map(CompactOrderMapper::toOrderLine)
+                        .toList())
+                .totalItems(compact.getTotalItems())
+                .total(fromCents(compact.getTotalCents()))
+                .createdAt(compact.getCreatedAt())
+                .updatedAt(compact.getUpdatedAt())
+                .isDeleted(Boolean.TRUE.equals(compact.getDeleted()))
+                .address(address)
+                .build();
+    }
+
+    public static StoredAddress toStoredAddress(Address address) {
+        return StoredAddress.builder()
+                .id(addressId(address))
+                .street(address.street())
+                .number(address.numer())
+                .city(address.city())
+                .province(address.province())
+                .country(address.country())
+                .postalCode(address.postalCode())
+                .build();
+    }
+
+    public static Address toAddress(StoredAddress stored) {
+        return Address.builder()
+                .street(stored.getStreet())
+                .numer(stored.getNumber())
+                .city(stored.getCity())
+                .province(stored.getProvince())
+                .country(stored.getCountry())
+                .postalCode(stored.getPostalCode())
+                .build();
+    }
+
+    /**
+     * Id de una dirección: el hash de todos sus campos, la misma dirección siempre da el mismo id.
+     */
+    public static String addressId(Address address) {
+        String key = String.join("\u0000", Arrays.asList(
+                address.street(), address.numer(), address.city(),
+                address.province(), address.country(), address.postalCode()
+        ));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, ADDRESS_ID_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se ha podido calcular el id de la dirección", e);
+        }
+    }
+
+    public static OutputCompactMigrationJob toOutputMigrationJob(CompactMigrationJob job) {
+        return OutputCompactMigrationJob.builder()
+                .id(job.getId().toString())
+                .status(job.getStatus().name())
+                .error(job.getError())
+                .read(job.getRead().get())
+                .copied(job.getCopied().get())
+                .skipped(job.getSkipped().get())
+                .removed(job.getRemoved().get())
+                .throughput(job.getThroughput())
+                .createdAt(job.getCreatedAt().toString())
+                .startedAt(job.getStartedAt() != null ? job.getStartedAt().toString() : null)
+                .finishedAt(job.getFinishedAt() != null ? job.getFinishedAt().toString() : null)
+                .build();
+    }
+
+    private static CompactOrderLine toCompactOrderLine(OrderLine line) {
+        return CompactOrderLine.builder()
+                .funkoId(line.getFunkoId())
+                .amount(line.getAmount())
+                .priceCents(toCents(line.getPrice()))
+                .name(line.getName())
+                .category(line.getCategory())
+                .build();
+    }
+
+    private static OrderLine toOrderLine(CompactOrderLine line) {
+        return OrderLine.builder()
+                .funkoId(line.getFunkoId())
+                .amount(line.getAmount())
+                .price(fromCents(line.getPriceCents()))
+                .name(line.getName())
+                .category(line.getCategory())
+                .build();
+    }
+
+    // Los precios tienen como mucho dos decimales, en céntimos se guardan exactos
+    private static Long toCents(Double amount) {
+        return amount == null ? null : Math.round(amount * 100);
+    }
+
+    private static Double fromCents(Long cents) {
+        return cents == null ? null : cents / 100.0;
+    }
+}
@@ -2,7 +2,9 @@ package com.example.orders.mappers;
 
 import com.example.orders.dto.input.InputOrder;
 import com.example.orders.dto.output.OutputOrder;
+import com.example.orders.dto.output.OutputOrderIntake;
 import com.example.orders.models.Order;
+import com.example.orders.service.OrderIntake;
 
 public class OrderMapper {
     // Constructor privado para evitar la instancia de la clase
@@ -35,4 +37,14 @@ public class OrderMapper {
                .isDeleted(order.getIsDeleted())
                .build();
     }
+
+    public static OutputOrderIntake toOutputOrderIntake(OrderIntake intake) {
+        return OutputOrderIntake.builder()
+                .id(intake.getId().toHexString())
+                .status(intake.getStatus().name())
+                .error(intake.getError())
+                .queuedAt(intake.getQueuedAt().toString())
+                .processedAt(intake.getProcessedAt() == null ? null : intake.getProcessedAt().toString())
+                .build();
+    }
 }
@@ -5,6 +5,8 @@ import jakarta.validation.constraints.Pattern;
 import lombok.Builder;
 import org.hibernate.validator.constraints.Length;
 
+import java.io.Serializable;
+
 @Builder
 public record Address(
         @Length(min = 3, message = "La calle debe tener al menos 3 caracteres")
@@ -20,5 +22,5 @@ public record Address(
         @NotBlank(message = "El código postal no puede estar vacío")
         @Pattern(regexp = "^[0-9]{5}$", message = "El código postal debe tener 5 dígitos")
         String postalCode
-) {
+) implements Serializable {
 }
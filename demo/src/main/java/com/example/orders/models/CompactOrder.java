@@ -0,0 +1,51 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Forma compacta de un pedido en Mongo: nombres de campo de una letra, importes en céntimos (long)
+ * y la dirección guardada aparte en addresses, una sola vez para todos los pedidos que la usan.
+ * El campo d solo se guarda si el pedido está borrado.
+ */
+@TypeAlias("o")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(CompactOrder.COLLECTION)
+// El mismo índice que user_history de Order, con los nombres cortos
+@CompoundIndex(name = "user_history", def = "{'u': 1, 'c': -1, 'd': 1}")
+public class CompactOrder {
+    public static final String COLLECTION = "orders_compact";
+
+    @Id
+    private ObjectId id;
+    @Field("u")
+    private Long userId;
+    @Field("l")
+    private List<CompactOrderLine> lines;
+    @Field("n")
+    private Integer totalItems;
+    @Field("t")
+    private Long totalCents;
+    @Field("c")
+    private LocalDateTime createdAt;
+    @Field("m")
+    private LocalDateTime updatedAt;
+    @Field("d")
+    private Boolean deleted;
+    @Field("a")
+    private String addressId; // Id (hash) de la dirección en addresses
+}
@@ -0,0 +1,27 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Línea de un CompactOrder, con nombres de campo de una letra y el precio en céntimos.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CompactOrderLine {
+    @Field("f")
+    private Long funkoId;
+    @Field("a")
+    private Integer amount;
+    @Field("p")
+    private Long priceCents;
+    @Field("n")
+    private String name;
+    @Field("c")
+    private String category;
+}
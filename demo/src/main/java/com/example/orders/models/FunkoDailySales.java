@@ -0,0 +1,41 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Ventas acumuladas de un Funko en un día. Se actualiza con $inc al crear y borrar pedidos,
+ * así los informes leen un documento por día en lugar de recorrer todos los pedidos.
+ */
+@TypeAlias("FunkoDailySales")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document("funko_daily_sales")
+@CompoundIndex(name = "funko_day", def = "{'funkoId': 1, 'day': 1}", unique = true)
+public class FunkoDailySales {
+    @Id
+    private ObjectId id;
+    private Long funkoId;
+    // yyyy-MM-dd, se ordena igual como texto que como fecha
+    private String day;
+    private long units;
+    // Importe en céntimos: los $inc con decimales van acumulando errores de redondeo
+    private long revenueCents;
+    private long orders;
+
+    // Importe en euros para las respuestas, no se guarda
+    @Transient
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Clave de idempotencia de una petición de creación de pedido y el pedido que creó.
+ * Mientras se crea el pedido el nodo que la tiene renueva claimedAt cada poco.
+ * Mongo borra los documentos solo al pasar un día (índice TTL sobre createdAt).
+ */
+@TypeAlias("IdempotencyRecord")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document("idempotency_keys")
+public class IdempotencyRecord {
+    // id del usuario y clave enviada por el cliente, para que dos usuarios no compartan claves
+    @Id
+    private String key;
+    // Huella de la petición, para detectar la misma clave con otro pedido
+    private String fingerprint;
+    // null mientras se está creando el pedido
+    private ObjectId orderId;
+    @Indexed(name = "ttl", expireAfter = "24h")
+    private Date createdAt;
+    // Quién está creando el pedido y cuándo lo ha confirmado por última vez: si deja de hacerlo
+    // (el nodo se ha caído) otra petición puede quedarse con la clave
+    private String claimToken;
+    private Date claimedAt;
+}
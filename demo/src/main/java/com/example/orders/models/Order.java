@@ -10,8 +10,11 @@ import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,7 +24,13 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Document("orders")
-public class Order {
+@CompoundIndexes({
+        // Historial de pedidos de un usuario, del más reciente al más antiguo, sin los borrados
+        @CompoundIndex(name = "user_history", def = "{'userId': 1, 'createdAt': -1, 'isDeleted': 1}"),
+        // Pedidos borrados o antiguos que hay que pasar al archivo
+        @CompoundIndex(name = "archive", def = "{'isDeleted': 1, 'createdAt': 1}")
+})
+public class Order implements Serializable {
     @Id
     @Builder.Default
     private ObjectId id = new ObjectId();
@@ -1,5 +1,6 @@
 package com.example.orders.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -7,15 +8,26 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-public class OrderLine {
+public class OrderLine implements Serializable {
+    @NotNull(message = "La cantidad del producto no puede ser nula")
     @Min(value = 1, message = "La cantidad del producto no puede ser negativa")
     @Builder.Default
     private Integer amount = 1;
     @NotNull
     private Long funkoId;
+    // Copia del Funko al hacer el pedido, la pone el servidor: el pedido se lee solo de Mongo, sin consultar H2,
+    // y no cambia aunque luego cambie el Funko
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double price; // Precio unitario
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String name;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String category; // Nombre de la categoría
 
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Dirección de envío compartida por los pedidos compactos. El id es un hash de todos sus campos,
+ * así la misma dirección siempre tiene el mismo id y se guarda una sola vez.
+ */
+@TypeAlias("a")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(StoredAddress.COLLECTION)
+public class StoredAddress {
+    public static final String COLLECTION = "addresses";
+
+    @Id
+    private String id;
+    @Field("s")
+    private String street;
+    @Field("n")
+    private String number;
+    @Field("ci")
+    private String city;
+    @Field("pr")
+    private String province;
+    @Field("co")
+    private String country;
+    @Field("pc")
+    private String postalCode;
+}
@@ -0,0 +1,40 @@
+package com.example.orders.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Compras acumuladas de un usuario en un mes. Se actualiza con $inc al crear y borrar pedidos.
+ */
+@TypeAlias("UserMonthlySales")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document("user_monthly_sales")
+@CompoundIndex(name = "user_month", def = "{'userId': 1, 'month': 1}", unique = true)
+public class UserMonthlySales {
+    @Id
+    private ObjectId id;
+    private Long userId;
+    // yyyy-MM
+    private String month;
+    private long units;
+    // Importe en céntimos: los $inc con decimales van acumulando errores de redondeo
+    private long revenueCents;
+    private long orders;
+
+    // Importe en euros para las respuestas, no se guarda
+    @Transient
+    public double getRevenue() {
+        return revenueCents / 100.0;
+    }
+}
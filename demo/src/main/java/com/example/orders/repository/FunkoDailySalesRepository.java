@@ -0,0 +1,17 @@
+package com.example.orders.repository;
+
+import com.example.orders.models.FunkoDailySales;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FunkoDailySalesRepository extends MongoRepository<FunkoDailySales, ObjectId> {
+
+    // Días entre from y to, ambos incluidos
+    @Query(value = "{ 'funkoId': ?0, 'day': { $gte: ?1, $lte: ?2 } }", sort = "{ 'day': 1 }")
+    List<FunkoDailySales> findByFunkoIdAndDayRange(Long funkoId, String from, String to);
+}
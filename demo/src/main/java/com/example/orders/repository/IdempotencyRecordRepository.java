@@ -0,0 +1,9 @@
+package com.example.orders.repository;
+
+import com.example.orders.models.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String> {
+}
@@ -1,13 +1,16 @@
 package com.example.orders.repository;
 
+import com.example.orders.dto.output.OrderSummary;
 import com.example.orders.models.Order;
 import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-
 @Repository
 public interface OrderRepository extends MongoRepository<Order, ObjectId> {
-    List<Order> findAllByUserId(String email);
+
+    // Usa el índice user_history de Order para filtrar y ordenar, solo lee los campos de OrderSummary
+    Page<OrderSummary> findByUserIdAndIsDeletedFalseOrderByCreatedAtDesc(Long userId, Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package com.example.orders.repository;
+
+import com.example.orders.models.UserMonthlySales;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserMonthlySalesRepository extends MongoRepository<UserMonthlySales, ObjectId> {
+
+    // Meses entre from y to, ambos incluidos
+    @Query(value = "{ 'userId': ?0, 'month': { $gte: ?1, $lte: ?2 } }", sort = "{ 'month': 1 }")
+    List<UserMonthlySales> findByUserIdAndMonthRange(Long userId, String from, String to);
+}
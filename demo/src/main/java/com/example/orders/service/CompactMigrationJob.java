@@ -0,0 +1,81 @@
+package com.example.orders.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado de una migración de los pedidos a la forma compacta. Lo actualiza el hilo que migra
+ * y lo leen las peticiones que consultan el progreso.
+ */
+@Getter
+public class CompactMigrationJob {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private final UUID id = UUID.randomUUID();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong copied = new AtomicLong();
+    // Ya estaban en orders_compact con la misma versión o una más nueva
+    private final AtomicLong skipped = new AtomicLong();
+    // Se han archivado mientras se copiaban y se han quitado de orders_compact
+    private final AtomicLong removed = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<CompactMigrationJob> finished = new CompletableFuture<>();
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+        finished.complete(this);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+        finished.complete(this);
+    }
+
+    boolean isFinished() {
+        return finished.isDone();
+    }
+
+    void addBatch(long read, long copied, long removed) {
+        this.read.addAndGet(read);
+        this.copied.addAndGet(copied);
+        this.skipped.addAndGet(read - copied);
+        this.removed.addAndGet(removed);
+    }
+
+    /**
+     * Se completa cuando la migración termina, tanto si acaba bien como si falla.
+     */
+    public CompletableFuture<CompactMigrationJob> whenFinished() {
+        return finished;
+    }
+
+    /**
+     * Pedidos leídos por segundo desde que empezó la migración.
+     */
+    public double getThroughput() {
+        if (startedAt == null) return 0;
+        LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return read.get() * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.orders.service;
+
+import com.example.orders.models.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Doble escritura durante la migración a la forma compacta: cada pedido guardado en orders
+ * (creado, borrado o insertado en lote) se copia también en orders_compact.
+ * Solo existe con orders.compact.dual-write=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "orders.compact.dual-write", havingValue = "true")
+public class CompactOrderMirror extends AbstractMongoEventListener<Order> {
+
+    private final CompactOrderService compactOrderService;
+
+    @Autowired
+    public CompactOrderMirror(CompactOrderService compactOrderService) {
+        this.compactOrderService = compactOrderService;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Order> event) {
+        // Las copias en el archivo también lanzan el evento, solo interesa la colección orders
+        if (!"orders".equals(event.getCollectionName())) return;
+        copy(event.getSource());
+    }
+
+    /**
+     * Copia un pedido que ya está guardado en orders. Lo usan también los cambios que no lanzan
+     * los eventos de Mongo, como findAndModify.
+     *
+     * @param order El pedido tal como ha quedado en orders.
+     */
+    public void copy(Order order) {
+        try {
+            compactOrderService.saveAll(List.of(order));
+        } catch (RuntimeException e) {
+            // El pedido ya está guardado en orders, volver a lanzar la migración lo copiará
+            log.error("No se ha podido copiar el pedido " + order.getId() + " a la forma compacta", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.output.CompactStorageStats;
+import com.example.orders.models.Order;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CompactOrderService {
+    void saveAll(List<Order> orders);
+    Optional<Order> findById(ObjectId id);
+    CompactMigrationJob startMigration();
+    CompactMigrationJob findMigration(UUID id);
+    long removeMissing(List<ObjectId> ids);
+    CompactStorageStats stats();
+}
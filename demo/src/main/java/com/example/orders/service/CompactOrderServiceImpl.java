@@ -0,0 +1,257 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.output.CompactStorageStats;
+import com.example.orders.exceptions.CompactMigrationInProgressException;
+import com.example.orders.exceptions.CompactMigrationNotFoundException;
+import com.example.orders.mappers.CompactOrderMapper;
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.Order;
+import com.example.orders.models.StoredAddress;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Guarda y lee los pedidos en la forma compacta (CompactOrder) y migra a ella los pedidos de orders.
+ * <p>
+ * Migración: con orders.compact.dual-write cada pedido que se guarda en orders se copia también
+ * en orders_compact (CompactOrderMirror), y {@link #startMigration()} copia en segundo plano los que ya existían.
+ * Las dos cosas guardan el pedido por su id, así que se pueden repetir o solapar sin duplicar nada, y la migración
+ * no reemplaza una copia más nueva que la suya. Los pedidos que se archivan se quitan también de orders_compact.
+ * Cuando las dos colecciones coinciden se pueden pasar las lecturas a orders_compact y dejar de escribir en orders.
+ */
+@Slf4j
+@Service
+public class CompactOrderServiceImpl implements CompactOrderService {
+
+    // Código de error de Mongo al insertar un _id que ya existe
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final Cache<UUID, CompactMigrationJob> jobs = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+    // La migración en marcha o la última, solo puede haber una a la vez
+    private final AtomicReference<CompactMigrationJob> current = new AtomicReference<>();
+    private final ExecutorService migrations = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "compact-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Direcciones que ya están guardadas, para no volver a escribirlas con cada pedido
+    private final Cache<String, Boolean> knownAddresses = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    @Autowired
+    public CompactOrderServiceImpl(
+            MongoTemplate mongoTemplate,
+            @Value("${orders.compact.batch-size:500}") int batchSize
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @PreDestroy
+    void stop() {
+        migrations.shutdownNow();
+    }
+
+    /**
+     * Guarda los pedidos en la forma compacta, reemplazándolos si ya estaban con una versión más antigua.
+     * Las direcciones nuevas se guardan antes, una sola vez cada una.
+     *
+     * @param orders Los pedidos.
+     */
+    @Override
+    public void saveAll(List<Order> orders) {
+        if (orders.isEmpty()) return;
+        saveIfNewer(orders);
+    }
+
+    @Override
+    public Optional<Order> findById(ObjectId id) {
+        CompactOrder compact = mongoTemplate.findById(id, CompactOrder.class);
+        if (compact == null) return Optional.empty();
+        StoredAddress address = compact.getAddressId() == null ? null : mongoTemplate.findById(compact.getAddressId(), StoredAddress.class);
+        return Optional.of(CompactOrderMapper.toOrder(compact, address == null ? null : CompactOrderMapper.toAddress(address)));
+    }
+
+    /**
+     * Empieza a copiar en segundo plano todos los pedidos de orders a la forma compacta.
+     *
+     * @return La migración, para consultar su progreso.
+     * @throws CompactMigrationInProgressException Si ya hay una migración en marcha.
+     */
+    @Override
+    public CompactMigrationJob startMigration() {
+        CompactMigrationJob job = new CompactMigrationJob();
+        CompactMigrationJob previous = current.get();
+        if ((previous != null && !previous.isFinished()) || !current.compareAndSet(previous, job)) {
+            throw new CompactMigrationInProgressException("Ya hay una migración a la forma compacta en marcha");
+        }
+        jobs.put(job.getId(), job);
+        migrations.execute(() -> migrate(job));
+        log.info("Migración " + job.getId() + " a " + CompactOrder.COLLECTION + " en cola");
+        return job;
+    }
+
+    @Override
+    public CompactMigrationJob findMigration(UUID id) {
+        CompactMigrationJob job = jobs.getIfPresent(id);
+        if (job == null) throw new CompactMigrationNotFoundException("No existe la migración con id: " + id);
+        return job;
+    }
+
+    /**
+     * Quita de la forma compacta los pedidos que ya no están en orders, por ejemplo porque se han archivado.
+     *
+     * @param ids Los ids de los pedidos que se comprueban.
+     * @return El número de pedidos quitados.
+     */
+    @Override
+    public long removeMissing(List<ObjectId> ids) {
+        if (ids.isEmpty()) return 0;
+        List<ObjectId> missing = new ArrayList<>(ids);
+        missing.removeAll(mongoTemplate.findDistinct(Query.query(Criteria.where("_id").in(ids)), "_id", Order.class, ObjectId.class));
+        if (missing.isEmpty()) return 0;
+        return mongoTemplate.remove(Query.query(Criteria.where("_id").in(missing)), CompactOrder.class).getDeletedCount();
+    }
+
+    // Copia los pedidos de orders por lotes en orden de id
+    void migrate(CompactMigrationJob job) {
+        job.start();
+        log.info("Migrando los pedidos a " + CompactOrder.COLLECTION);
+        try {
+            ObjectId after = null;
+            while (true) {
+                Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+                if (after != null) query.addCriteria(Criteria.where("_id").gt(after));
+                List<Order> batch = mongoTemplate.find(query, Order.class);
+                if (batch.isEmpty()) break;
+                long copied = saveIfNewer(batch);
+                // Los que se han archivado mientras se copiaban ya no deben estar en la forma compacta
+                long removed = removeMissing(batch.stream().map(Order::getId).toList());
+                job.addBatch(batch.size(), copied, removed);
+                after = batch.get(batch.size() - 1).getId();
+                log.info("Migrados " + job.getRead() + " pedidos, " + job.getCopied() + " copiados");
+            }
+            job.complete();
+        } catch (RuntimeException e) {
+            log.error("Error al migrar los pedidos a " + CompactOrder.COLLECTION, e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda los pedidos en la forma compacta solo si no estaban o su copia es más antigua (campo m).
+     * Así ni la migración, que lee los lotes antes de escribirlos, ni dos copias de la doble escritura
+     * que lleguen desordenadas (un guardado y un borrado del mismo pedido) pisan una versión más nueva.
+     *
+     * @return El número de pedidos copiados.
+     */
+    private long saveIfNewer(List<Order> orders) {
+        saveAddresses(orders);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompactOrder.class);
+        for (Order order : orders) {
+            CompactOrder compact = CompactOrderMapper.toCompactOrder(order);
+            Criteria older = compact.getUpdatedAt() == null
+                    ? Criteria.where("_id").is(compact.getId()).and("m").exists(false)
+                    : Criteria.where("_id").is(compact.getId()).orOperator(
+                            Criteria.where("m").lt(compact.getUpdatedAt()),
+                            Criteria.where("m").exists(false)
+                    );
+            bulk.replaceOne(Query.query(older), compact, FindAndReplaceOptions.options().upsert());
+        }
+        try {
+            BulkWriteResult result = bulk.execute();
+            return result.getModifiedCount() + result.getUpserts().size();
+        } catch (BulkOperationException e) {
+            // Si la copia es igual o más nueva el filtro no la encuentra y el upsert falla por el _id repetido:
+            // ese pedido no hay que copiarlo. Cualquier otro error sí es un fallo
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) throw e;
+            return e.getResult().getModifiedCount() + e.getResult().getUpserts().size();
+        }
+    }
+
+    @Override
+    public CompactStorageStats stats() {
+        Document orders = storageStats(mongoTemplate.getCollectionName(Order.class));
+        Document compact = storageStats(CompactOrder.COLLECTION);
+        Document addresses = storageStats(StoredAddress.COLLECTION);
+        return CompactStorageStats.builder()
+                .orders(number(orders, "count"))
+                .ordersBytes(number(orders, "size"))
+                .avgOrderBytes(number(orders, "avgObjSize"))
+                .compactOrders(number(compact, "count"))
+                .compactOrdersBytes(number(compact, "size"))
+                .avgCompactOrderBytes(number(compact, "avgObjSize"))
+                .addresses(number(addresses, "count"))
+                .addressesBytes(number(addresses, "size"))
+                .build();
+    }
+
+    private void saveAddresses(List<Order> orders) {
+        Map<String, StoredAddress> missing = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (order.getAddress() == null) continue;
+            StoredAddress address = CompactOrderMapper.toStoredAddress(order.getAddress());
+            if (knownAddresses.getIfPresent(address.getId()) == null) missing.putIfAbsent(address.getId(), address);
+        }
+        if (missing.isEmpty()) return;
+        // $setOnInsert: si otra petición ya la ha guardado no se toca, es la misma dirección
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredAddress.class);
+        for (StoredAddress address : missing.values()) {
+            Update update = new Update()
+                    .setOnInsert("s", address.getStreet())
+                    .setOnInsert("n", address.getNumber())
+                    .setOnInsert("ci", address.getCity())
+                    .setOnInsert("pr", address.getProvince())
+                    .setOnInsert("co", address.getCountry())
+                    .setOnInsert("pc", address.getPostalCode());
+            bulk.upsert(Query.query(Criteria.where("_id").is(address.getId())), update);
+        }
+        bulk.execute();
+        missing.keySet().forEach(id -> knownAddresses.put(id, true));
+    }
+
+    private Document storageStats(String collection) {
+        if (!mongoTemplate.collectionExists(collection)) return new Document();
+        List<Document> pipeline = List.of(new Document("$collStats", new Document("storageStats", new Document())));
+        Document stats = mongoTemplate.getCollection(collection).aggregate(pipeline).first();
+        return stats == null ? new Document() : stats.get("storageStats", Document.class);
+    }
+
+    private long number(Document stats, String field) {
+        Object value = stats.get(field);
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.orders.service;
+
+import com.example.orders.models.Order;
+import org.bson.types.ObjectId;
+
+import java.util.Optional;
+
+public interface OrderArchiveService {
+    long archive();
+    Optional<Order> findArchived(ObjectId id);
+}
@@ -0,0 +1,141 @@
+package com.example.orders.service;
+
+import com.example.orders.models.Order;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archivo de pedidos fríos: los pedidos borrados y los más antiguos que orders.archive.max-age se mueven,
+ * por lotes, de la colección orders a orders_archive, que se crea con compresión zstd.
+ * Así orders solo guarda los pedidos que se consultan a menudo y sus índices caben en memoria.
+ * <p>
+ * Cada lote se copia primero al archivo (reemplazando si ya estaba) y después se borra de orders solo si
+ * no ha cambiado mientras tanto. Si la tarea se corta a medias, o se ejecuta a la vez en dos nodos,
+ * la siguiente pasada termina el trabajo sin perder ni duplicar pedidos.
+ * Los pedidos archivados se quitan también de orders_compact.
+ */
+@Slf4j
+@Service
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    public static final String COLLECTION = "orders_archive";
+    // Código de error de Mongo cuando la colección ya existe
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final MongoTemplate mongoTemplate;
+    private final CompactOrderService compactOrders;
+    private final Counter archived;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final String compressor;
+
+    @Autowired
+    public OrderArchiveServiceImpl(
+            MongoTemplate mongoTemplate,
+            CompactOrderService compactOrders,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${orders.archive.max-age:365d}") Duration maxAge,
+            @Value("${orders.archive.batch-size:500}") int batchSize,
+            @Value("${orders.archive.compressor:zstd}") String compressor
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.compactOrders = compactOrders;
+        this.archived = meterRegistry.getIfAvailable(SimpleMeterRegistry::new).counter("orders.archived");
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Mueve al archivo los pedidos borrados y los creados hace más de max-age.
+     * Las dos consultas usan el índice archive de Order (isDeleted, createdAt).
+     *
+     * @return El número de pedidos archivados.
+     */
+    @Override
+    public long archive() {
+        createCollection();
+        long count = archiveWhere(Criteria.where("isDeleted").is(true));
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        count += archiveWhere(Criteria.where("isDeleted").is(false).and("createdAt").lt(cutoff));
+        return count;
+    }
+
+    /**
+     * Busca un pedido en el archivo. Es más lento que en orders: la colección está comprimida
+     * y casi nunca está en memoria.
+     *
+     * @param id El id del pedido.
+     * @return El pedido archivado, si existe.
+     */
+    @Override
+    public Optional<Order> findArchived(ObjectId id) {
+        log.info("Buscando el pedido con id: " + id + " en el archivo");
+        return Optional.ofNullable(mongoTemplate.findById(id, Order.class, COLLECTION));
+    }
+
+    private long archiveWhere(Criteria criteria) {
+        long count = 0;
+        while (true) {
+            Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(batchSize);
+            List<Order> batch = mongoTemplate.find(query, Order.class);
+            if (batch.isEmpty()) return count;
+
+            BulkOperations copy = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, COLLECTION);
+            batch.forEach(order -> copy.replaceOne(byId(order), order, FindAndReplaceOptions.options().upsert()));
+            copy.execute();
+
+            // Si el pedido ha cambiado desde que se leyó se deja en orders, la siguiente pasada archivará la versión nueva
+            BulkOperations remove = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+            remove.remove(batch.stream()
+                    .map(order -> byId(order).addCriteria(Criteria.where("updatedAt").is(order.getUpdatedAt())))
+                    .toList());
+            int removed = remove.execute().getDeletedCount();
+            // Los archivados tampoco deben quedarse en la forma compacta, que se lee como si fuera orders
+            if (removed > 0) compactOrders.removeMissing(batch.stream().map(Order::getId).toList());
+            count += removed;
+            archived.increment(removed);
+            log.info("Archivados " + removed + " pedidos de " + batch.size());
+            // Un lote sin borrar nada son pedidos que cambian sin parar, se dejan para la próxima vez
+            if (batch.size() < batchSize || removed == 0) return count;
+        }
+    }
+
+    private Query byId(Order order) {
+        return Query.query(Criteria.where("_id").is(order.getId()));
+    }
+
+    // La compresión se elige al crear la colección, si se crease sola con el primer insert no estaría comprimida
+    private void createCollection() {
+        if (mongoTemplate.collectionExists(COLLECTION)) return;
+        try {
+            mongoTemplate.getDb().createCollection(COLLECTION, new CreateCollectionOptions().storageEngineOptions(
+                    new Document("wiredTiger", new Document("configString", "block_compressor=" + compressor))
+            ));
+            log.info("Creada la colección " + COLLECTION + " con compresión " + compressor);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != NAMESPACE_EXISTS) throw e; // La ha creado otro nodo a la vez
+        }
+    }
+}
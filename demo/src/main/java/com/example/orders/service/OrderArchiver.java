@@ -0,0 +1,34 @@
+package com.example.orders.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que mueve al archivo los pedidos borrados y los antiguos.
+ * Con orders.archive.cron=- no se ejecuta.
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private final OrderArchiveService archiveService;
+
+    @Autowired
+    public OrderArchiver(OrderArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    @Scheduled(cron = "${orders.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        long start = System.currentTimeMillis();
+        try {
+            long archived = archiveService.archive();
+            log.info("Archivados " + archived + " pedidos en " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            // Lo que ya se ha movido queda bien, el resto se archivará en la siguiente ejecución
+            log.error("Error al archivar los pedidos", e);
+        }
+    }
+}
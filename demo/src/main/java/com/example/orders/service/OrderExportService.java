@@ -0,0 +1,14 @@
+package com.example.orders.service;
+
+import com.example.orders.models.Order;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OrderExportService {
+    Flux<Order> streamOrders(Optional<Long> userId, Optional<LocalDateTime> from, Optional<LocalDateTime> to);
+    long exportOrders(OutputStream out, Optional<Long> userId, Optional<LocalDateTime> from, Optional<LocalDateTime> to) throws IOException;
+}
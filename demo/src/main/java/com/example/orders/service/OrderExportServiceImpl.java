@@ -0,0 +1,105 @@
+package com.example.orders.service;
+
+import com.example.orders.mappers.OrderMapper;
+import com.example.orders.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de todos los pedidos que cumplen un filtro, sin cargarlos enteros en memoria.
+ * <p>
+ * streamOrders usa el driver reactivo: Mongo entrega los pedidos por lotes del cursor según los va pidiendo
+ * el que escribe la respuesta (backpressure), y mientras se espera a Mongo no se ocupa ningún hilo.
+ * exportOrders es el camino bloqueante de siempre, que ocupa el hilo de la petición hasta terminar;
+ * se mantiene para los clientes que no leen NDJSON y para compararlos.
+ */
+@Slf4j
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper mapper;
+    private final int batchSize;
+
+    @Autowired
+    public OrderExportServiceImpl(
+            ReactiveMongoTemplate reactiveMongoTemplate,
+            MongoTemplate mongoTemplate,
+            ObjectMapper mapper,
+            @Value("${orders.export.batch-size:500}") int batchSize
+    ) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Emite los pedidos del filtro ordenados por id, a medida que se consumen.
+     *
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha (incluida).
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @return Los pedidos, leídos de Mongo por lotes según la demanda.
+     */
+    @Override
+    public Flux<Order> streamOrders(Optional<Long> userId, Optional<LocalDateTime> from, Optional<LocalDateTime> to) {
+        return reactiveMongoTemplate.find(exportQuery(userId, from, to), Order.class)
+                .doOnSubscribe(subscription -> log.info("Exportando pedidos con el driver reactivo"))
+                .doOnCancel(() -> log.info("Exportación de pedidos cancelada por el cliente"));
+    }
+
+    /**
+     * Escribe los pedidos del filtro en NDJSON (un pedido por línea), bloqueando el hilo hasta terminar.
+     *
+     * @param out Donde se escriben los pedidos.
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha (incluida).
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @return El número de pedidos escritos.
+     */
+    @Override
+    public long exportOrders(
+            OutputStream out,
+            Optional<Long> userId,
+            Optional<LocalDateTime> from,
+            Optional<LocalDateTime> to
+    ) throws IOException {
+        log.info("Exportando pedidos con el driver bloqueante");
+        long count = 0;
+        try (Stream<Order> orders = mongoTemplate.stream(exportQuery(userId, from, to), Order.class);
+             SequenceWriter writer = mapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                writer.write(OrderMapper.toOutputOrder(iterator.next()));
+                count++;
+            }
+            writer.flush();
+            if (count > 0) out.write('\n');
+        }
+        return count;
+    }
+
+    private Query exportQuery(Optional<Long> userId, Optional<LocalDateTime> from, Optional<LocalDateTime> to) {
+        Query query = OrderServiceImpl.filterQuery(userId, from, to);
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(batchSize);
+        return query;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.models.Order;
+
+import java.util.function.Supplier;
+
+public interface OrderIdempotencyService {
+
+    /**
+     * El pedido creado o devuelto por una petición con clave de idempotencia.
+     *
+     * @param order El pedido.
+     * @param replayed true si ya se había creado con una petición anterior.
+     */
+    record Result(Order order, boolean replayed) {}
+
+    Result execute(String key, InputOrder request, Supplier<Order> action);
+}
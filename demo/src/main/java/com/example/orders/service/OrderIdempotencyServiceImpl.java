@@ -0,0 +1,279 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.exceptions.IdempotencyKeyInUseException;
+import com.example.orders.exceptions.IdempotencyKeyReusedException;
+import com.example.orders.models.IdempotencyRecord;
+import com.example.orders.models.Order;
+import com.example.orders.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Hace que repetir una petición de creación de pedido con la misma cabecera Idempotency-Key
+ * devuelva el pedido original en lugar de crear otro y descontar el stock dos veces.
+ * <p>
+ * Las claves recientes están en memoria (acotada): si llega un duplicado mientras el original se está
+ * procesando, espera a su resultado en lugar de ejecutarse. Además cada clave se guarda en Mongo con
+ * caducidad, para que sobreviva a un reinicio y la vean el resto de nodos.
+ * <p>
+ * Mientras se crea el pedido la clave está reservada con un plazo (lease) que el nodo renueva cada tercio
+ * del plazo, hasta que consigue apuntar el pedido creado. Si el nodo se cae la reserva caduca
+ * y otra petición con la misma clave se queda con ella, en lugar de recibir un 409 durante 24 horas.
+ */
+@Slf4j
+@Service
+public class OrderIdempotencyServiceImpl implements OrderIdempotencyService {
+
+    // Una petición en curso o terminada en este nodo
+    private record InFlight(String fingerprint, CompletableFuture<ObjectId> orderId) {}
+
+    private final IdempotencyRecordRepository records;
+    private final MongoTemplate mongoTemplate;
+    private final OrderService orders;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Cache<String, InFlight> local;
+    private final Duration claimLease;
+    // Renueva las reservas en curso y reintenta apuntar los pedidos que no se han podido apuntar
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OrderIdempotencyServiceImpl(
+            IdempotencyRecordRepository records,
+            MongoTemplate mongoTemplate,
+            OrderService orders,
+            @Value("${orders.idempotency.local-size:10000}") long localSize,
+            @Value("${orders.idempotency.local-ttl:1h}") Duration localTtl,
+            @Value("${orders.idempotency.claim-lease:30s}") Duration claimLease
+    ) {
+        this.records = records;
+        this.mongoTemplate = mongoTemplate;
+        this.orders = orders;
+        this.claimLease = claimLease;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(localTtl)
+                .build();
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdown();
+    }
+
+    /**
+     * Ejecuta la creación del pedido una sola vez por clave.
+     *
+     * @param key La clave enviada por el cliente.
+     * @param request El pedido recibido, para comprobar que la clave no se usa con otro distinto.
+     * @param action La creación del pedido.
+     * @return El pedido, nuevo o el creado por la petición original.
+     * @throws IdempotencyKeyReusedException Si la clave ya se usó con otro pedido.
+     * @throws IdempotencyKeyInUseException Si otro nodo está procesando la misma clave.
+     */
+    @Override
+    public Result execute(String key, InputOrder request, Supplier<Order> action) {
+        String scopedKey = request.getUserId() + ":" + key;
+        String fingerprint = fingerprint(request);
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight current = local.asMap().putIfAbsent(scopedKey, mine);
+        if (current != null) { // Repetida en este nodo: se espera al original
+            checkFingerprint(current.fingerprint(), fingerprint, key);
+            log.info("Petición repetida con la clave de idempotencia " + key);
+            return new Result(load(await(current.orderId())), true);
+        }
+
+        Claim claim = null;
+        try {
+            Optional<IdempotencyRecord> stored = records.findById(scopedKey);
+            if (stored.isPresent()) { // Repetida después de un reinicio o en otro nodo
+                checkFingerprint(stored.get().getFingerprint(), fingerprint, key);
+                if (stored.get().getOrderId() != null) {
+                    mine.orderId().complete(stored.get().getOrderId());
+                    return new Result(load(stored.get().getOrderId()), true);
+                }
+                claim = takeOver(stored.get(), key);
+            } else {
+                claim = claim(scopedKey, fingerprint, key);
+            }
+        } catch (RuntimeException e) {
+            local.asMap().remove(scopedKey, mine);
+            mine.orderId().completeExceptionally(e);
+            throw e;
+        }
+
+        Order created;
+        try {
+            created = action.get();
+        } catch (RuntimeException e) {
+            // Sin pedido la clave queda libre para que el cliente lo vuelva a intentar
+            claim.release();
+            local.asMap().remove(scopedKey, mine);
+            mine.orderId().completeExceptionally(e);
+            throw e;
+        }
+        claim.created(created.getId());
+        mine.orderId().complete(created.getId());
+        return new Result(created, false);
+    }
+
+    // Apunta la clave en Mongo antes de crear el pedido, si otro nodo ya la ha apuntado falla
+    private Claim claim(String scopedKey, String fingerprint, String key) {
+        Claim claim = new Claim(scopedKey, key);
+        Date now = new Date();
+        try {
+            records.insert(new IdempotencyRecord(scopedKey, fingerprint, null, now, claim.token, now));
+        } catch (DuplicateKeyException e) {
+            throw new IdempotencyKeyInUseException("El pedido con la clave " + key + " se está procesando");
+        }
+        return claim.start();
+    }
+
+    // Se queda con una clave cuyo dueño ha dejado de renovarla. Solo uno de los que lo intentan
+    // a la vez lo consigue, porque la actualización exige que siga el token que se ha leído
+    private Claim takeOver(IdempotencyRecord stored, String key) {
+        Date claimedAt = stored.getClaimedAt() != null ? stored.getClaimedAt() : stored.getCreatedAt();
+        if (claimedAt != null && claimedAt.toInstant().plus(claimLease).isAfter(Instant.now())) {
+            throw new IdempotencyKeyInUseException("El pedido con la clave " + key + " se está procesando");
+        }
+        Claim claim = new Claim(stored.getKey(), key);
+        Query stale = Query.query(Criteria.where("_id").is(stored.getKey())
+                .and("orderId").is(null)
+                .and("claimToken").is(stored.getClaimToken()));
+        Update update = Update.update("claimToken", claim.token).set("claimedAt", new Date());
+        if (mongoTemplate.updateFirst(stale, update, IdempotencyRecord.class).getModifiedCount() == 0) {
+            throw new IdempotencyKeyInUseException("El pedido con la clave " + key + " se está procesando");
+        }
+        log.warn("La reserva de la clave de idempotencia " + key + " había caducado, se vuelve a procesar");
+        return claim.start();
+    }
+
+    /**
+     * La reserva de una clave por esta petición. Se renueva cada tercio del plazo hasta que el pedido
+     * queda apuntado; si apuntarlo falla se sigue reintentando en la renovación, así la reserva no caduca
+     * y nadie crea el pedido otra vez.
+     */
+    private final class Claim implements Runnable {
+        private final String scopedKey;
+        private final String key;
+        private final String token = UUID.randomUUID().toString();
+        private volatile ObjectId orderId;
+        private ScheduledFuture<?> heartbeat;
+
+        private Claim(String scopedKey, String key) {
+            this.scopedKey = scopedKey;
+            this.key = key;
+        }
+
+        private Query mine() {
+            return Query.query(Criteria.where("_id").is(scopedKey).and("claimToken").is(token));
+        }
+
+        private Claim start() {
+            long period = Math.max(1, claimLease.toMillis() / 3);
+            heartbeat = heartbeats.scheduleAtFixedRate(this, period, period, TimeUnit.MILLISECONDS);
+            return this;
+        }
+
+        private void created(ObjectId orderId) {
+            this.orderId = orderId;
+            try {
+                record();
+            } catch (RuntimeException e) {
+                log.error("No se ha podido guardar la clave de idempotencia " + key + ", se reintentará", e);
+            }
+        }
+
+        private void record() {
+            long matched = mongoTemplate.updateFirst(mine(), Update.update("orderId", orderId), IdempotencyRecord.class)
+                    .getMatchedCount();
+            if (matched == 0) log.warn("La clave de idempotencia " + key + " ya no es de esta petición");
+            heartbeat.cancel(false);
+        }
+
+        private void release() {
+            heartbeat.cancel(false);
+            try {
+                mongoTemplate.remove(mine(), IdempotencyRecord.class);
+            } catch (RuntimeException e) {
+                log.error("No se ha podido liberar la clave de idempotencia " + key + ", caducará sola", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (orderId != null) {
+                    record();
+                } else {
+                    mongoTemplate.updateFirst(mine(), Update.update("claimedAt", new Date()), IdempotencyRecord.class);
+                }
+            } catch (RuntimeException e) {
+                log.error("No se ha podido renovar la clave de idempotencia " + key, e);
+            }
+        }
+    }
+
+    private ObjectId await(CompletableFuture<ObjectId> orderId) {
+        try {
+            return orderId.join();
+        } catch (CompletionException e) {
+            // El duplicado recibe el mismo error que la petición original
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    // Con el servicio, para que también se devuelvan los pedidos que ya se han archivado
+    private Order load(ObjectId orderId) {
+        return orders.findById(orderId);
+    }
+
+    private void checkFingerprint(String expected, String actual, String key) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyReusedException("La clave de idempotencia " + key + " ya se ha usado con otro pedido");
+        }
+    }
+
+    String fingerprint(InputOrder request) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se ha podido calcular la huella del pedido", e);
+        }
+    }
+}
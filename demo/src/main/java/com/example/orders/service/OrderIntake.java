@@ -0,0 +1,50 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.input.InputOrder;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de un pedido recibido en modo asíncrono. El id es el que tendrá el pedido al guardarse.
+ * Lo actualiza el hilo que procesa la cola y lo leen las peticiones que consultan el estado.
+ */
+@Getter
+public class OrderIntake {
+
+    public enum Status { QUEUED, COMPLETED, REJECTED, FAILED }
+
+    private final ObjectId id = new ObjectId();
+    private final InputOrder order;
+    private final LocalDateTime queuedAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile LocalDateTime processedAt;
+
+    OrderIntake(InputOrder order) {
+        this.order = order;
+    }
+
+    void complete() {
+        finish(Status.COMPLETED, null);
+    }
+
+    void reject(String error) {
+        finish(Status.REJECTED, error);
+    }
+
+    void fail(String error) {
+        finish(Status.FAILED, error);
+    }
+
+    boolean isQueued() {
+        return status == Status.QUEUED;
+    }
+
+    private void finish(Status status, String error) {
+        this.error = error;
+        this.processedAt = LocalDateTime.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.input.InputOrder;
+
+public interface OrderIntakeService {
+    OrderIntake submit(InputOrder order);
+
+    OrderIntake getIntake(String id);
+}
@@ -0,0 +1,329 @@
+package com.example.orders.service;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.funko.services.FunkoService;
+import com.example.funko.funko.services.StockReservation;
+import com.example.funko.websocket.config.WebSocketHandler;
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.exceptions.OrderIntakeNotFoundException;
+import com.example.orders.exceptions.OrderIntakeRejectedException;
+import com.example.orders.models.Order;
+import com.example.orders.repository.OrderRepository;
+import com.example.users.services.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recepción asíncrona de pedidos. La petición solo valida el usuario y deja el pedido en una cola acotada;
+ * un único hilo la vacía en lotes pequeños y por cada lote hace una sola transacción de stock en H2
+ * y un solo insertMany en Mongo (group commit), en lugar de una de cada por pedido.
+ * El estado de cada pedido se consulta por su id; por el WebSocket /ws/orders solo se avisa de qué pedido ha terminado.
+ */
+@Slf4j
+@Service
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private final OrderRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final FunkoService funkoService;
+    private final UserService userService;
+    private final SalesRollupService salesRollups;
+    private final NegativeLookupCache negativeLookups;
+    private final WebSocketHandler webSocketHandler;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<OrderIntake> queue;
+    private final int batchSize;
+    private final Duration linger;
+    // Los estados se guardan un tiempo después de procesarse para que los clientes puedan consultarlos
+    private final Cache<String, OrderIntake> intakes = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .maximumSize(100_000)
+            .build();
+    // Las notificaciones se mandan desde otro hilo para que un cliente lento no frene la cola
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-intake-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Duration shutdownTimeout;
+    // Al parar se dejan de aceptar pedidos y el hilo termina cuando vacía la cola
+    private volatile boolean running = true;
+    private Thread worker;
+
+    @Autowired
+    public OrderIntakeServiceImpl(
+            OrderRepository repository,
+            MongoTemplate mongoTemplate,
+            FunkoService funkoService,
+            UserService userService,
+            SalesRollupService salesRollups,
+            NegativeLookupCache negativeLookups,
+            @Qualifier("webSocketOrdersHandler") WebSocketHandler webSocketHandler,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${orders.intake.queue-capacity:1000}") int queueCapacity,
+            @Value("${orders.intake.batch-size:50}") int batchSize,
+            @Value("${orders.intake.linger:20ms}") Duration linger,
+            @Value("${orders.intake.shutdown-timeout:10s}") Duration shutdownTimeout
+    ) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.funkoService = funkoService;
+        this.userService = userService;
+        this.salesRollups = salesRollups;
+        this.negativeLookups = negativeLookups;
+        this.webSocketHandler = webSocketHandler;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.shutdownTimeout = shutdownTimeout;
+        this.meterRegistry.gaugeCollectionSize("orders.intake.queue", List.of(), queue);
+    }
+
+    @PostConstruct
+    void start() {
+        worker = new Thread(this::run, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Deja de aceptar pedidos y espera como mucho shutdown-timeout a que se procesen los que ya están en cola,
+     * que ya se habían aceptado con un 202. Los que no dé tiempo a procesar se marcan como fallidos y se notifican.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        try {
+            if (worker != null) {
+                worker.join(shutdownTimeout.toMillis());
+                if (worker.isAlive()) {
+                    log.warn("La cola de pedidos no se ha vaciado en " + shutdownTimeout + ", quedan " + queue.size());
+                    worker.interrupt();
+                    worker.join(1000);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<OrderIntake> left = new ArrayList<>();
+        queue.drainTo(left);
+        failStopped(left);
+        notifier.shutdown();
+        try {
+            notifier.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deja un pedido en la cola para procesarlo en el siguiente lote.
+     *
+     * @param order El pedido.
+     * @return El estado del pedido, con el id que tendrá al guardarse.
+     * @throws OrderIntakeRejectedException Si la cola está llena o el servicio se está parando.
+     */
+    @Override
+    public OrderIntake submit(InputOrder order) {
+        if (!running) throw new OrderIntakeRejectedException("El servicio se está parando, inténtalo más tarde");
+        userService.getUserById(order.getUserId()); // Tirará una excepción si no existe
+        OrderIntake intake = new OrderIntake(order);
+        intakes.put(intake.getId().toHexString(), intake);
+        if (!queue.offer(intake)) {
+            intakes.invalidate(intake.getId().toHexString());
+            meterRegistry.counter("orders.intake.processed", "status", "OVERLOADED").increment();
+            throw new OrderIntakeRejectedException("Hay demasiados pedidos en espera, inténtalo más tarde");
+        }
+        // Si se ha empezado a parar mientras tanto puede que ya nadie vacíe la cola
+        if (!running && queue.remove(intake)) {
+            intakes.invalidate(intake.getId().toHexString());
+            throw new OrderIntakeRejectedException("El servicio se está parando, inténtalo más tarde");
+        }
+        log.info("Pedido " + intake.getId() + " en cola, " + queue.size() + " en espera");
+        return intake;
+    }
+
+    @Override
+    public OrderIntake getIntake(String id) {
+        OrderIntake intake = intakes.getIfPresent(id);
+        if (intake == null) throw new OrderIntakeNotFoundException("No hay ningún pedido en cola con id: " + id);
+        return intake;
+    }
+
+    private void run() {
+        List<OrderIntake> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderIntake first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                fillBatch(batch);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                // Solo se interrumpe al parar si no da tiempo a vaciar la cola
+                Thread.currentThread().interrupt();
+                failStopped(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error al procesar un lote de " + batch.size() + " pedidos", e);
+                batch.stream().filter(OrderIntake::isQueued).forEach(intake -> finish(intake, () -> intake.fail("Error interno al procesar el pedido")));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Espera como mucho linger a que lleguen más pedidos, así en los picos los lotes salen llenos
+    private void fillBatch(List<OrderIntake> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + linger.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) return;
+            OrderIntake next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Procesa un lote: reserva el stock de todos en una transacción, guarda los aceptados en un solo insertMany
+     * y actualiza el estado de cada pedido.
+     * El insert no es ordenado, así que si falla algún pedido los demás se guardan igual: solo se devuelve el stock
+     * y se marcan como fallidos los que no se han guardado. Cualquier otro error después de reservar
+     * también devuelve el stock de los pedidos que no han llegado a guardarse.
+     */
+    void processBatch(List<OrderIntake> batch) {
+        log.info("Procesando un lote de " + batch.size() + " pedidos");
+        List<StockReservation> reservations = funkoService.reserveStockForEach(
+                batch.stream().map(intake -> OrderServiceImpl.amountsByFunko(intake.getOrder())).toList()
+        );
+
+        // Pedidos con el stock ya descontado que todavía no se han guardado
+        List<OrderIntake> unsaved = new ArrayList<>();
+        try {
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                OrderIntake intake = batch.get(i);
+                StockReservation reservation = reservations.get(i);
+                if (!reservation.isReserved()) {
+                    finish(intake, () -> intake.reject(reservation.error()));
+                    continue;
+                }
+                unsaved.add(intake);
+                Order order = OrderServiceImpl.buildOrder(intake.getOrder(), reservation.funkos());
+                order.setId(intake.getId());
+                orders.add(order);
+            }
+            if (orders.isEmpty()) return;
+
+            Set<ObjectId> notInserted = insert(orders);
+            List<OrderIntake> saved = unsaved.stream().filter(intake -> !notInserted.contains(intake.getId())).toList();
+            unsaved.removeAll(saved);
+
+            for (Order order : orders) {
+                if (notInserted.contains(order.getId())) continue;
+                negativeLookups.forget(OrderServiceImpl.NEGATIVE_LOOKUP, order.getId());
+                try {
+                    salesRollups.recordOrder(order);
+                } catch (RuntimeException e) {
+                    log.error("No se han podido actualizar las ventas acumuladas del pedido " + order.getId(), e);
+                }
+            }
+            saved.forEach(intake -> finish(intake, intake::complete));
+        } catch (RuntimeException e) {
+            log.error("Error al procesar un lote de " + batch.size() + " pedidos", e);
+        } finally {
+            if (!unsaved.isEmpty()) releaseStock(unsaved);
+        }
+    }
+
+    /**
+     * Guarda los pedidos en un insert no ordenado.
+     *
+     * @return Los ids de los pedidos que no se han guardado.
+     */
+    private Set<ObjectId> insert(List<Order> orders) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class).insert(orders).execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // Cada error trae la posición del pedido en el lote, el resto se ha guardado
+            Set<ObjectId> failed = new HashSet<>();
+            e.getErrors().forEach(error -> failed.add(orders.get(error.getIndex()).getId()));
+            log.error("No se han podido guardar " + failed.size() + " de " + orders.size() + " pedidos", e);
+            return failed;
+        } catch (RuntimeException e) {
+            // No se sabe qué ha llegado a escribirse (p. ej. se ha cortado la conexión), se pregunta a Mongo
+            log.error("Error al guardar " + orders.size() + " pedidos, se comprueba cuáles se han guardado", e);
+            Set<ObjectId> failed = new HashSet<>();
+            orders.forEach(order -> failed.add(order.getId()));
+            repository.findAllById(List.copyOf(failed)).forEach(order -> failed.remove(order.getId()));
+            return failed;
+        }
+    }
+
+    // El stock ya está descontado en otra base de datos, hay que devolverlo a mano
+    private void releaseStock(List<OrderIntake> unsaved) {
+        log.error("Se devuelve el stock reservado de " + unsaved.size() + " pedidos que no se han guardado");
+        Map<Long, Integer> amounts = new HashMap<>();
+        unsaved.forEach(intake -> OrderServiceImpl.amountsByFunko(intake.getOrder())
+                .forEach((funkoId, amount) -> amounts.merge(funkoId, amount, Integer::sum)));
+        try {
+            funkoService.releaseStock(amounts);
+        } catch (RuntimeException e) {
+            log.error("No se ha podido devolver el stock " + amounts, e);
+        }
+        unsaved.stream().filter(OrderIntake::isQueued)
+                .forEach(intake -> finish(intake, () -> intake.fail("No se ha podido guardar el pedido")));
+    }
+
+    private void failStopped(List<OrderIntake> intakes) {
+        intakes.stream().filter(OrderIntake::isQueued)
+                .forEach(intake -> finish(intake, () -> intake.fail("El servicio se ha parado antes de procesar el pedido")));
+    }
+
+    // Por el WebSocket se avisa a todos los clientes conectados, así que solo va el id del pedido:
+    // quien lo ha hecho consulta su estado en /orders/intake/{id}
+    private void finish(OrderIntake intake, Runnable transition) {
+        transition.run();
+        meterRegistry.counter("orders.intake.processed", "status", intake.getStatus().name()).increment();
+        notifier.execute(() -> {
+            try {
+                webSocketHandler.sendMessage(mapper.writeValueAsString(Map.of("id", intake.getId().toHexString())));
+            } catch (Exception e) {
+                log.error("Error al notificar el estado del pedido " + intake.getId(), e);
+            }
+        });
+    }
+}
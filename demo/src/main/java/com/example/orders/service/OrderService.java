@@ -2,14 +2,25 @@ package com.example.orders.service;
 
 
 import com.example.orders.dto.input.InputOrder;
+import com.example.orders.dto.output.OrderSummary;
 import com.example.orders.models.Order;
+import com.example.utils.CursorPage;
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
-interface OrderService {
-    List<Order> findAll();
+public interface OrderService {
+    CursorPage<Order> findAll(
+            Optional<ObjectId> after,
+            Optional<Long> userId,
+            Optional<LocalDateTime> from,
+            Optional<LocalDateTime> to,
+            int size
+    );
+    Page<OrderSummary> findHistoryByUser(Long userId, Pageable pageable);
     Order findById(ObjectId id);
     Order save(InputOrder order);
     Order update(ObjectId id, InputOrder updatedOrder);
@@ -1,10 +1,11 @@
 package com.example.orders.service;
 
-import com.example.funko.funko.mapper.FunkoMapper;
+import com.example.cache.negative.NegativeLookupCache;
 import com.example.funko.funko.model.Funko;
 import com.example.funko.funko.services.FunkoService;
 import com.example.orders.dto.input.InputOrder;
-import com.example.orders.exceptions.InvalidOrderException;
+import com.example.orders.dto.output.OrderSummary;
+import com.example.orders.exceptions.OrderArchivedException;
 import com.example.orders.exceptions.OrderNotFoundException;
 import com.example.orders.mappers.OrderMapper;
 import com.example.orders.models.Order;
@@ -13,51 +14,151 @@ import com.example.orders.repository.OrderRepository;
 import com.example.users.exceptions.UserDoesntExistException;
 import com.example.users.models.User;
 import com.example.users.services.UserService;
+import com.example.utils.CursorPage;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @CacheConfig(cacheNames = {"orders"})
 public class OrderServiceImpl implements OrderService{
 
+    // Búsquedas por id sin resultado en la caché negativa
+    static final String NEGATIVE_LOOKUP = "orders";
+    // Tamaño máximo de una página de pedidos
+    static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository repository;
+    private final MongoTemplate mongoTemplate;
     private final FunkoService funkoService;
     private final UserService userService;
+    private final NegativeLookupCache negativeLookups;
+    private final SalesRollupService salesRollups;
+    private final OrderArchiveService archive;
+    private final ObjectProvider<CompactOrderMirror> compactMirror;
 
     @Autowired
     public OrderServiceImpl(
             OrderRepository repository,
+            MongoTemplate mongoTemplate,
             FunkoService funkoService,
-            UserService userService
+            UserService userService,
+            NegativeLookupCache negativeLookups,
+            SalesRollupService salesRollups,
+            OrderArchiveService archive,
+            ObjectProvider<CompactOrderMirror> compactMirror
     ){
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
         this.funkoService = funkoService;
         this.userService = userService;
+        this.negativeLookups = negativeLookups;
+        this.salesRollups = salesRollups;
+        this.archive = archive;
+        this.compactMirror = compactMirror;
     }
 
+    /**
+     * Busca los pedidos paginando por cursor sobre el id: los ObjectId crecen con el tiempo, así que cada página
+     * son los siguientes pedidos con id mayor que el último de la anterior. Se usa el índice de _id y solo se
+     * leen de Mongo los pedidos de la página, sin importar cuántos haya en la colección.
+     *
+     * @param after El id del último pedido de la página anterior, vacío para la primera página.
+     * @param userId Solo los pedidos de este usuario.
+     * @param from Solo los pedidos creados desde esta fecha (incluida).
+     * @param to Solo los pedidos creados antes de esta fecha.
+     * @param size El número máximo de pedidos de la página.
+     * @return La página de pedidos con el cursor de la siguiente.
+     */
     @Override
-    public List<Order> findAll() {
-        log.info("Buscando todos los pedidos");
-        return repository.findAll();
+    public CursorPage<Order> findAll(
+            Optional<ObjectId> after,
+            Optional<Long> userId,
+            Optional<LocalDateTime> from,
+            Optional<LocalDateTime> to,
+            int size
+    ) {
+        log.info("Buscando pedidos después de: " + after.map(ObjectId::toHexString).orElse("el principio"));
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        Query query = filterQuery(userId, from, to);
+        after.ifPresent(id -> query.addCriteria(Criteria.where("_id").gt(id)));
+        // Se pide uno más para saber si hay siguiente página
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(pageSize + 1);
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+        if (orders.size() <= pageSize) {
+            return new CursorPage<>(orders, pageSize, null);
+        }
+        List<Order> content = orders.subList(0, pageSize);
+        return new CursorPage<>(content, pageSize, content.get(pageSize - 1).getId().toHexString());
+    }
+
+    // Filtros comunes del listado y de la exportación de pedidos. Los borrados siguen en orders hasta que se archivan,
+    // pero no se listan ni se exportan
+    static Query filterQuery(Optional<Long> userId, Optional<LocalDateTime> from, Optional<LocalDateTime> to) {
+        Query query = new Query(Criteria.where("isDeleted").ne(true));
+        userId.ifPresent(id -> query.addCriteria(Criteria.where("userId").is(id)));
+        if (from.isPresent() || to.isPresent()) {
+            Criteria createdAt = Criteria.where("createdAt");
+            from.ifPresent(createdAt::gte);
+            to.ifPresent(createdAt::lt);
+            query.addCriteria(createdAt);
+        }
+        return query;
+    }
+
+    /**
+     * Busca el historial de pedidos de un usuario, del más reciente al más antiguo y sin los borrados.
+     * Solo se leen los campos del resumen, sin las líneas del pedido.
+     *
+     * @param userId El id del usuario.
+     * @param pageable La página que se quiere, el orden lo fija la consulta.
+     * @return La página del historial.
+     */
+    @Override
+    public Page<OrderSummary> findHistoryByUser(Long userId, Pageable pageable) {
+        log.info("Buscando el historial de pedidos del usuario: " + userId);
+        return repository.findByUserIdAndIsDeletedFalseOrderByCreatedAtDesc(userId, pageable);
     }
 
     @Override
     @Cacheable
     public Order findById(ObjectId id) {
         log.info("Buscando el pedido con id: " + id);
-        return repository.findById(id).orElseThrow(
-                () -> new OrderNotFoundException("El pedido con id: " + id + " no existe")
-        );
+        if (negativeLookups.isKnownMiss(NEGATIVE_LOOKUP, id)) { // Ya se ha buscado hace poco y no existía
+            throw OrderNotFoundException.cachedMiss("El pedido con id: " + id + " no existe");
+        }
+        Optional<Order> result = repository.findById(id);
+        if (result.isEmpty()) { // Puede ser un pedido antiguo o borrado que ya se ha archivado
+            result = archive.findArchived(id);
+        }
+        if (result.isEmpty()) {
+            negativeLookups.recordMiss(NEGATIVE_LOOKUP, id);
+            throw new OrderNotFoundException("El pedido con id: " + id + " no existe");
+        }
+        return result.get();
     }
 
     @Override
@@ -65,19 +166,47 @@ public class OrderServiceImpl implements OrderService{
     public Order save(InputOrder order) {
         log.info("Guardando el pedido: " + order);
         User user = userService.getUserById(order.getUserId()); // El usuario e el contexto de seguridad de Spring Boot
-        Order newOrder = setUpOrder(order, user);
-        return repository.save(newOrder);
+        Map<Long, Integer> amounts = amountsByFunko(order);
+        Order newOrder = setUpOrder(order, amounts);
+        Order savedOrder;
+        try {
+            savedOrder = repository.save(newOrder);
+        } catch (RuntimeException e) {
+            // El stock ya está descontado en otra base de datos, hay que devolverlo a mano
+            log.error("No se ha podido guardar el pedido, se devuelve el stock reservado", e);
+            funkoService.releaseStock(amounts);
+            throw e;
+        }
+        negativeLookups.forget(NEGATIVE_LOOKUP, savedOrder.getId());
+        updateRollups(savedOrder, true);
+        return savedOrder;
     }
 
-    private Order setUpOrder(InputOrder order, User user) {
+    // Unidades por Funko, un mismo Funko puede venir en varias líneas
+    static Map<Long, Integer> amountsByFunko(InputOrder order) {
+        Map<Long, Integer> amounts = new HashMap<>();
+        for (OrderLine line : order.getOrderLines()) {
+            amounts.merge(line.getFunkoId(), line.getAmount(), Integer::sum);
+        }
+        return amounts;
+    }
+
+    private Order setUpOrder(InputOrder order, Map<Long, Integer> amounts) {
+        // Valida y descuenta el stock de todos los Funkos a la vez, tirará una excepción si falta alguno o no hay stock
+        Map<Long, Funko> funkos = funkoService.reserveStock(amounts).stream()
+                .collect(Collectors.toMap(Funko::getId, Function.identity()));
+        return buildOrder(order, funkos);
+    }
+
+    // Crea el pedido con una copia del precio, el nombre y la categoría de los Funkos ya reservados
+    static Order buildOrder(InputOrder order, Map<Long, Funko> funkos) {
         Double total = 0.0;
         Integer numItems = 0;
-        // Valída que los Funkos estén disponibles para el pedido
         for (OrderLine line : order.getOrderLines()){
-            Funko funko = funkoService.findById(line.getFunkoId()); // Tirará una excepción si no lo encuentra
-            if (funko.getStock() < line.getAmount()) throw new InvalidOrderException("No hay suficientes funkos");
-            funko.setStock(funko.getStock() - line.getAmount());
-            funkoService.update(funko.getId(), FunkoMapper.toInputFunko(funko));
+            Funko funko = funkos.get(line.getFunkoId());
+            line.setPrice(funko.getPrice()); // El precio que se cobra, aunque luego cambie el del Funko
+            line.setName(funko.getName());
+            line.setCategory(funko.getCategory() == null ? null : funko.getCategory().getName());
             total += line.getAmount() * funko.getPrice();
             numItems += line.getAmount();
         }
@@ -96,16 +225,46 @@ public class OrderServiceImpl implements OrderService{
         }else throw new OrderNotFoundException("El pedido con id: " + id + " no existe existe");
     }
 
+    /**
+     * Marca el pedido como borrado. El documento sigue en orders hasta que la tarea de archivo lo mueve
+     * a orders_archive, y se puede seguir consultando por su id.
+     * El cambio se hace en una sola operación que solo encuentra el pedido si no estaba borrado, así dos borrados
+     * a la vez no restan sus ventas dos veces. Los pedidos que ya están en el archivo no se pueden borrar.
+     *
+     * @param id El id del pedido.
+     * @return El pedido borrado.
+     * @throws OrderArchivedException Si el pedido ya se ha archivado sin estar borrado.
+     */
     @Override
     @CacheEvict(key = "#id")
     public Order deleteById(ObjectId id) {
         log.info("Eliminando el pedido con id: " + id);
-        Optional<Order> order = repository.findById(id);
-        if (order.isPresent()) {
-            repository.deleteById(id);
-        }else throw new OrderNotFoundException("El pedido con id: " + id + " no existe existe");
-        Order deletedOrder = order.get();
-        deletedOrder.setIsDeleted(true);
+        Order deletedOrder = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("isDeleted").ne(true)),
+                Update.update("isDeleted", true).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class
+        );
+        if (deletedOrder == null) {
+            Optional<Order> archived = archive.findArchived(id);
+            if (archived.isPresent() && !Boolean.TRUE.equals(archived.get().getIsDeleted())) {
+                throw new OrderArchivedException("El pedido con id: " + id + " está archivado y no se puede borrar");
+            }
+            throw new OrderNotFoundException("El pedido con id: " + id + " no existe o ya está borrado");
+        }
+        // findAndModify no lanza los eventos de Mongo, la copia compacta (si está activa) se hace a mano
+        compactMirror.ifAvailable(mirror -> mirror.copy(deletedOrder));
+        updateRollups(deletedOrder, false);
         return deletedOrder;
     }
+
+    // El pedido ya está guardado o borrado: si fallan las ventas acumuladas no se deshace, solo se avisa
+    private void updateRollups(Order order, boolean created) {
+        try {
+            if (created) salesRollups.recordOrder(order);
+            else salesRollups.revertOrder(order);
+        } catch (RuntimeException e) {
+            log.error("No se han podido actualizar las ventas acumuladas del pedido " + order.getId(), e);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.orders.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que reconstruye las ventas acumuladas a partir de los pedidos.
+ * Los acumulados se mantienen al crear y borrar pedidos, esta tarea corrige lo que no se haya podido sumar
+ * o restar y los pedidos que ya existían antes de los acumulados.
+ * Con orders.rollups.rebuild-cron=- no se ejecuta.
+ */
+@Slf4j
+@Component
+public class SalesRollupRebuilder {
+
+    private final SalesRollupService salesRollups;
+
+    @Autowired
+    public SalesRollupRebuilder(SalesRollupService salesRollups) {
+        this.salesRollups = salesRollups;
+    }
+
+    @Scheduled(cron = "${orders.rollups.rebuild-cron:0 30 4 * * *}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            salesRollups.rebuild();
+            log.info("Ventas acumuladas reconstruidas en " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            // $out solo sustituye la colección al terminar, los acumulados anteriores siguen intactos
+            log.error("Error al reconstruir las ventas acumuladas", e);
+        }
+    }
+}
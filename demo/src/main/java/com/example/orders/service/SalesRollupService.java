@@ -0,0 +1,21 @@
+package com.example.orders.service;
+
+import com.example.orders.models.FunkoDailySales;
+import com.example.orders.models.Order;
+import com.example.orders.models.UserMonthlySales;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface SalesRollupService {
+    void recordOrder(Order order);
+
+    void revertOrder(Order order);
+
+    long rebuild();
+
+    List<FunkoDailySales> findFunkoDailySales(Long funkoId, LocalDate from, LocalDate to);
+
+    List<UserMonthlySales> findUserMonthlySales(Long userId, YearMonth from, YearMonth to);
+}
@@ -0,0 +1,203 @@
+package com.example.orders.service;
+
+import com.example.orders.models.FunkoDailySales;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.models.UserMonthlySales;
+import com.example.orders.repository.FunkoDailySalesRepository;
+import com.example.orders.repository.UserMonthlySalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene las ventas acumuladas por Funko y día y por usuario y mes.
+ * Cada pedido suma sus unidades, su importe y 1 pedido con un $inc con upsert:
+ * Mongo aplica cada incremento de forma atómica, así que dos pedidos a la vez no se pisan
+ * y el documento se crea con el primer pedido del día o del mes.
+ * <p>
+ * Los importes se guardan en céntimos y los dos acumulados salen de las líneas del pedido (precio por unidades),
+ * así las ventas de los Funkos de un mes suman lo mismo que las compras de los usuarios.
+ * Al borrar un pedido solo se resta si el acumulado lo contiene, nunca queda en negativo: los pedidos
+ * anteriores a los acumulados, o los que fallaron al sumarse, se corrigen con {@link #rebuild()}.
+ */
+@Slf4j
+@Service
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private final MongoTemplate mongoTemplate;
+    private final FunkoDailySalesRepository funkoDailySalesRepository;
+    private final UserMonthlySalesRepository userMonthlySalesRepository;
+
+    @Autowired
+    public SalesRollupServiceImpl(
+            MongoTemplate mongoTemplate,
+            FunkoDailySalesRepository funkoDailySalesRepository,
+            UserMonthlySalesRepository userMonthlySalesRepository
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.funkoDailySalesRepository = funkoDailySalesRepository;
+        this.userMonthlySalesRepository = userMonthlySalesRepository;
+    }
+
+    @Override
+    public void recordOrder(Order order) {
+        log.debug("Sumando el pedido " + order.getId() + " a las ventas acumuladas");
+        apply(order, 1);
+    }
+
+    @Override
+    public void revertOrder(Order order) {
+        log.debug("Restando el pedido " + order.getId() + " de las ventas acumuladas");
+        apply(order, -1);
+    }
+
+    /**
+     * Vuelve a calcular los dos acumulados desde los pedidos no borrados, también los del archivo.
+     * Cada colección se sustituye entera al final con $out, así las lecturas nunca ven un acumulado a medias.
+     * Los pedidos que se sumen mientras se calcula se pierden hasta la siguiente reconstrucción,
+     * por eso se programa a una hora sin pedidos.
+     *
+     * @return El número de documentos de ventas por Funko y día generados.
+     */
+    @Override
+    public long rebuild() {
+        String zone = ZoneId.systemDefault().getId(); // Los días y meses de los pedidos son en hora local
+        Document notDeleted = new Document("$match", new Document("isDeleted", new Document("$ne", true)));
+        Document allOrders = new Document("$unionWith", new Document("coll", OrderArchiveServiceImpl.COLLECTION)
+                .append("pipeline", List.of(notDeleted)));
+        Document lineCents = new Document("$multiply", List.of(
+                new Document("$round", List.of(new Document("$multiply", List.of(new Document("$ifNull", List.of("$$line.price", 0)), 100)), 0)),
+                "$$line.amount"
+        ));
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class)).aggregate(List.of(
+                notDeleted,
+                allOrders,
+                new Document("$unwind", "$orderLines"),
+                // Primero por pedido y Funko, para contar cada pedido una vez aunque repita el Funko en varias líneas
+                new Document("$group", new Document("_id", new Document("order", "$_id")
+                        .append("funkoId", "$orderLines.funkoId")
+                        .append("day", new Document("$dateToString", new Document("format", "%Y-%m-%d").append("date", "$createdAt").append("timezone", zone))))
+                        .append("units", new Document("$sum", "$orderLines.amount"))
+                        .append("revenueCents", new Document("$sum", new Document("$let", new Document("vars", new Document("line", "$orderLines")).append("in", lineCents))))),
+                new Document("$group", new Document("_id", new Document("funkoId", "$_id.funkoId").append("day", "$_id.day"))
+                        .append("units", new Document("$sum", "$units"))
+                        .append("revenueCents", new Document("$sum", "$revenueCents"))
+                        .append("orders", new Document("$sum", 1))),
+                new Document("$project", new Document("_id", 0)
+                        .append("funkoId", "$_id.funkoId")
+                        .append("day", "$_id.day")
+                        .append("units", new Document("$toLong", "$units"))
+                        .append("revenueCents", new Document("$toLong", "$revenueCents"))
+                        .append("orders", new Document("$toLong", "$orders"))),
+                new Document("$out", mongoTemplate.getCollectionName(FunkoDailySales.class))
+        )).allowDiskUse(true).toCollection();
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class)).aggregate(List.of(
+                notDeleted,
+                allOrders,
+                new Document("$group", new Document("_id", new Document("userId", "$userId")
+                        .append("month", new Document("$dateToString", new Document("format", "%Y-%m").append("date", "$createdAt").append("timezone", zone))))
+                        .append("units", new Document("$sum", "$totalItems"))
+                        .append("revenueCents", new Document("$sum", new Document("$sum", new Document("$map", new Document("input", "$orderLines")
+                                .append("as", "line")
+                                .append("in", lineCents)))))
+                        .append("orders", new Document("$sum", 1))),
+                new Document("$project", new Document("_id", 0)
+                        .append("userId", "$_id.userId")
+                        .append("month", "$_id.month")
+                        .append("units", new Document("$toLong", "$units"))
+                        .append("revenueCents", new Document("$toLong", "$revenueCents"))
+                        .append("orders", new Document("$toLong", "$orders"))),
+                new Document("$out", mongoTemplate.getCollectionName(UserMonthlySales.class))
+        )).allowDiskUse(true).toCollection();
+
+        long funkoDays = mongoTemplate.estimatedCount(FunkoDailySales.class);
+        log.info("Ventas acumuladas reconstruidas: " + funkoDays + " días de Funkos, "
+                + mongoTemplate.estimatedCount(UserMonthlySales.class) + " meses de usuarios");
+        return funkoDays;
+    }
+
+    @Override
+    public List<FunkoDailySales> findFunkoDailySales(Long funkoId, LocalDate from, LocalDate to) {
+        return funkoDailySalesRepository.findByFunkoIdAndDayRange(funkoId, from.toString(), to.toString());
+    }
+
+    @Override
+    public List<UserMonthlySales> findUserMonthlySales(Long userId, YearMonth from, YearMonth to) {
+        return userMonthlySalesRepository.findByUserIdAndMonthRange(userId, from.toString(), to.toString());
+    }
+
+    private void apply(Order order, int sign) {
+        LocalDate date = order.getCreatedAt().toLocalDate();
+        boolean revert = sign < 0;
+        // Un incremento por Funko aunque venga en varias líneas
+        Map<Long, Long> units = new HashMap<>();
+        Map<Long, Long> revenueCents = new HashMap<>();
+        for (OrderLine line : order.getOrderLines()) {
+            units.merge(line.getFunkoId(), (long) line.getAmount(), Long::sum);
+            revenueCents.merge(line.getFunkoId(), lineCents(line), Long::sum);
+        }
+
+        if (!units.isEmpty()) {
+            // Todos los Funkos del pedido en una sola llamada a Mongo
+            BulkOperations funkoOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FunkoDailySales.class);
+            String day = date.toString();
+            units.forEach((funkoId, funkoUnits) -> {
+                Criteria criteria = Criteria.where("funkoId").is(funkoId).and("day").is(day);
+                Update update = new Update()
+                        .inc("units", sign * funkoUnits)
+                        .inc("revenueCents", sign * revenueCents.get(funkoId))
+                        .inc("orders", sign);
+                if (revert) {
+                    // Solo si el acumulado incluye el pedido, si no quedaría en negativo
+                    funkoOps.updateOne(new Query(criteria.and("units").gte(funkoUnits).and("orders").gte(1)), update);
+                } else {
+                    funkoOps.upsert(new Query(criteria), update);
+                }
+            });
+            int matched = funkoOps.execute().getMatchedCount();
+            if (revert && matched < units.size()) {
+                log.warn("Las ventas por Funko no incluían el pedido " + order.getId() + ", no se restan. Reconstruye los acumulados");
+            }
+        }
+
+        long orderCents = revenueCents.values().stream().mapToLong(Long::longValue).sum();
+        Criteria userCriteria = Criteria.where("userId").is(order.getUserId()).and("month").is(YearMonth.from(date).toString());
+        Update userUpdate = new Update()
+                .inc("units", sign * (long) order.getTotalItems())
+                .inc("revenueCents", sign * orderCents)
+                .inc("orders", sign);
+        if (revert) {
+            long matched = mongoTemplate.updateFirst(
+                    new Query(userCriteria.and("units").gte(order.getTotalItems()).and("orders").gte(1)),
+                    userUpdate,
+                    UserMonthlySales.class
+            ).getMatchedCount();
+            if (matched == 0) {
+                log.warn("Las compras del usuario no incluían el pedido " + order.getId() + ", no se restan. Reconstruye los acumulados");
+            }
+        } else {
+            mongoTemplate.upsert(new Query(userCriteria), userUpdate, UserMonthlySales.class);
+        }
+    }
+
+    // Cada precio se redondea a céntimos antes de multiplicar, igual que en rebuild()
+    private static long lineCents(OrderLine line) {
+        return line.getPrice() == null ? 0L : Math.round(line.getPrice() * 100) * line.getAmount();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.utils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Una página de resultados paginados por cursor: en lugar de un número de página se devuelve
+ * el cursor a partir del cual se pide la siguiente, así no hay que contar ni saltar documentos.
+ *
+ * @param content Los elementos de la página.
+ * @param size El número máximo de elementos pedido.
+ * @param nextCursor El cursor de la siguiente página, null si es la última.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor
+) {
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), size, nextCursor);
+    }
+}
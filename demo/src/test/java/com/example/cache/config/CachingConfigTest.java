@@ -0,0 +1,49 @@
+package com.example.cache.config;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingConfigTest {
+
+    private final CacheRefreshLoader loader = new CacheRefreshLoader() {
+        @Override
+        public String cacheName() {
+            return "funkos";
+        }
+
+        @Override
+        public Object load(Object key) {
+            return key;
+        }
+    };
+
+    @Test
+    void refreshAfterWriteIsAppliedToLocalCaches() {
+        // Arrange
+        CacheSpecProperties.Spec spec = new CacheSpecProperties.Spec();
+        spec.setRefreshAfterWrite(Duration.ofMinutes(1));
+
+        // Act
+        LoadingCache<Object, Object> cache = CachingConfig.caffeineFor("funkos", spec, false, loader, false).build(loader);
+
+        // Assert
+        assertTrue(cache.policy().refreshAfterWrite().isPresent());
+    }
+
+    @Test
+    void refreshAfterWriteIsIgnoredWhenTheCacheUsesTheSharedTier() {
+        // Arrange
+        CacheSpecProperties.Spec spec = new CacheSpecProperties.Spec();
+        spec.setRefreshAfterWrite(Duration.ofMinutes(1));
+
+        // Act
+        LoadingCache<Object, Object> cache = CachingConfig.caffeineFor("funkos", spec, false, loader, true).build(loader);
+
+        // Assert
+        assertTrue(cache.policy().refreshAfterWrite().isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.cache.negative;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegativeLookupCacheTest {
+
+    private final NegativeLookupCache cache = new NegativeLookupCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void rememberedMissIsForgottenWhenCreated() {
+        // Arrange
+        cache.recordMiss("funkos", 1L);
+
+        // Act
+        boolean beforeCreate = cache.isKnownMiss("funkos", 1L);
+        cache.forget("funkos", 1L);
+        boolean afterCreate = cache.isKnownMiss("funkos", 1L);
+
+        // Assert
+        assertTrue(beforeCreate);
+        assertFalse(afterCreate);
+    }
+
+    @Test
+    void missesAreSeparatedByLookup() {
+        // Arrange
+        cache.recordMiss("funkos", 1L);
+
+        // Act & Assert
+        assertFalse(cache.isKnownMiss("orders", 1L));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.cache.singleflight;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightCacheTest {
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlightCache cache = new SingleFlightCache(
+                new CaffeineCache("funkos", Caffeine.newBuilder().build()),
+                registry
+        );
+        AtomicInteger repositoryCalls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get(1L, () -> {
+                    repositoryCalls.incrementAndGet();
+                    Thread.sleep(200);
+                    return "Funko 1";
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("Funko 1", result.get());
+        }
+        executor.shutdown();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, repositoryCalls.get()),
+                () -> assertEquals(1.0, registry.get("cache.singleflight.loads").counter().count()),
+                () -> assertTrue(registry.get("cache.singleflight.coalesced").counter().count() > 0)
+        );
+    }
+}
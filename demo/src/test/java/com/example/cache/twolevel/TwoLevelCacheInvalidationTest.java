@@ -0,0 +1,134 @@
+package com.example.cache.twolevel;
+
+import com.example.cache.config.CachingConfig;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arranca dos contextos con la caché de dos niveles en el mismo cluster de Hazelcast embebido
+ * y comprueba que los cambios de un nodo invalidan la caché local del otro en poco tiempo.
+ */
+class TwoLevelCacheInvalidationTest {
+
+    private static final Duration MAX_INVALIDATION_LATENCY = Duration.ofSeconds(1);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @Configuration(proxyBeanMethods = false)
+    @Import({CachingConfig.class, TwoLevelCacheConfig.class})
+    static class CacheNodeConfig {
+    }
+
+    @BeforeAll
+    static void startNodes() {
+        String clusterName = "test-" + UUID.randomUUID();
+        nodeA = startNode(clusterName);
+        nodeB = startNode(clusterName);
+        waitUntil(() -> nodeA.getBean(HazelcastInstance.class).getCluster().getMembers().size() == 2, Duration.ofSeconds(30));
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) nodeB.close();
+        if (nodeA != null) nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String clusterName) {
+        return new SpringApplicationBuilder(CacheNodeConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "cache.l2.enabled=true",
+                        "cache.l2.cluster-name=" + clusterName,
+                        "cache.l2.members=127.0.0.1"
+                )
+                .run();
+    }
+
+    private static Cache cache(ConfigurableApplicationContext node) {
+        return node.getBean(CacheManager.class).getCache("orders");
+    }
+
+    @Test
+    void putOnOneNodeIsReadFromTheSharedTierOnTheOther() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+
+        // Act
+        cache(nodeA).put(key, "v1");
+
+        // Assert
+        Cache.ValueWrapper result = cache(nodeB).get(key);
+        assertNotNull(result);
+        assertEquals("v1", result.get());
+    }
+
+    @Test
+    void updateInvalidatesTheLocalCopyOfTheOtherNode() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        cache(nodeA).put(key, "v1");
+        assertEquals("v1", cache(nodeB).get(key).get()); // Ahora B la tiene en su caché local
+
+        // Act
+        long start = System.nanoTime();
+        cache(nodeA).put(key, "v2");
+        waitUntil(() -> "v2".equals(valueOf(cache(nodeB), key)), MAX_INVALIDATION_LATENCY);
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(latency.compareTo(MAX_INVALIDATION_LATENCY) <= 0);
+    }
+
+    @Test
+    void evictInvalidatesTheLocalCopyOfTheOtherNode() {
+        // Arrange
+        String key = UUID.randomUUID().toString();
+        cache(nodeA).put(key, "v1");
+        assertEquals("v1", cache(nodeB).get(key).get());
+
+        // Act
+        long start = System.nanoTime();
+        cache(nodeA).evict(key);
+        waitUntil(() -> cache(nodeB).get(key) == null, MAX_INVALIDATION_LATENCY);
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(latency.compareTo(MAX_INVALIDATION_LATENCY) <= 0);
+    }
+
+    private static Object valueOf(Cache cache, Object key) {
+        Cache.ValueWrapper wrapper = cache.get(key);
+        return wrapper == null ? null : wrapper.get();
+    }
+
+    private static void waitUntil(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("La condición no se ha cumplido en " + timeout.toMillis() + " ms");
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
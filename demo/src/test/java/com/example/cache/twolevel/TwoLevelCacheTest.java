@@ -0,0 +1,60 @@
+package com.example.cache.twolevel;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hazelcast.map.IMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private IMap<Object, Object> shared;
+
+    @Mock
+    private CacheInvalidationBus bus;
+
+    private CaffeineCache local;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        local = new CaffeineCache("orders", Caffeine.newBuilder().build());
+        cache = new TwoLevelCache(local, shared, bus, null);
+    }
+
+    @Test
+    void readFromTheSharedTierIsKeptLocally() {
+        // Arrange
+        when(shared.get("key")).thenReturn("v1");
+
+        // Act
+        cache.get("key");
+
+        // Assert
+        assertEquals("v1", local.getNativeCache().getIfPresent("key"));
+    }
+
+    @Test
+    void readOverlappingAnInvalidationIsNotKeptLocally() {
+        // Arrange: otro nodo cambia el valor mientras se lee la versión antigua de L2
+        when(shared.get("key")).thenAnswer(invocation -> {
+            cache.evictLocal("key");
+            return "old";
+        });
+
+        // Act
+        Object value = cache.get("key").get();
+
+        // Assert
+        assertEquals("old", value); // Esta lectura ya había empezado
+        assertNull(local.getNativeCache().getIfPresent("key")); // Pero no se queda en L1 hasta que caduque
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.cache.warmup;
+
+import com.example.cache.config.CacheSpecProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheWarmUpTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CacheSpecProperties.WarmUp properties;
+    private CacheAccessTracker tracker;
+    private RecordingLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheSpecProperties.WarmUp();
+        properties.setFile(tempDir.resolve("warmup.json").toString());
+        properties.setCaches(List.of("funkos"));
+        properties.setTopK(2);
+        properties.setBatchSize(2);
+        tracker = new CacheAccessTracker(properties.getTopK());
+        loader = new RecordingLoader();
+    }
+
+    @Test
+    void warmUpLoadsConfiguredKeys() {
+        // Arrange
+        properties.setKeys(Map.of("funkos", List.of("1", "2", "3")));
+        CacheWarmUp warmUp = new CacheWarmUp(properties, tracker, List.of(loader));
+
+        // Act
+        int loaded = warmUp.warmUp();
+
+        // Assert
+        assertEquals(3, loaded);
+        assertEquals(Set.of(1L, 2L, 3L), loader.loaded);
+    }
+
+    @Test
+    void topKeysAreSavedAndLoadedOnNextStart() {
+        // Arrange
+        tracker.record("funkos", 1L);
+        tracker.record("funkos", 2L);
+        tracker.record("funkos", 2L);
+        tracker.record("funkos", 3L);
+        tracker.record("funkos", 3L);
+        tracker.record("funkos", 3L);
+        new CacheWarmUp(properties, tracker, List.of(loader)).saveTopKeys();
+        CacheWarmUp nextStart = new CacheWarmUp(properties, new CacheAccessTracker(properties.getTopK()), List.of(loader));
+
+        // Act
+        int loaded = nextStart.warmUp();
+
+        // Assert
+        assertEquals(2, loaded);
+        assertEquals(Set.of(2L, 3L), loader.loaded);
+    }
+
+    private static class RecordingLoader implements CacheWarmUpLoader {
+        private final Set<Long> loaded = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String cacheName() {
+            return "funkos";
+        }
+
+        @Override
+        public Object parseKey(String key) {
+            return Long.valueOf(key);
+        }
+
+        @Override
+        public void load(Object key) {
+            loaded.add((Long) key);
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.example.funko.category.controller;
 
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.dto.output.OutputCategory;
+import com.example.funko.category.dto.output.OutputCategoryImportJob;
 import com.example.funko.category.exceptions.CategoryDoesNotExistException;
 import com.example.funko.category.mapper.CategoryMapper;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.model.Description;
+import com.example.funko.category.service.CategoryImportJob;
+import com.example.funko.category.service.CategoryImportService;
 import com.example.funko.category.service.CategoryServiceImpl;
 import com.example.funko.category.storage.json.CategoryJsonStorageImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -36,7 +39,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
-@SpringBootTest
+@SpringBootTest(properties = "orders.indexes.ensure-on-startup=false")
 @AutoConfigureMockMvc
 @ExtendWith(MockitoExtension.class)
 class CategoryControllerTest {
@@ -49,6 +52,9 @@ class CategoryControllerTest {
     @MockBean
     private CategoryJsonStorageImpl categoryStorage;
 
+    @MockBean
+    private CategoryImportService categoryImportService;
+
     @Autowired
     MockMvc mockMvc;
 
@@ -259,26 +265,35 @@ class CategoryControllerTest {
                 "categories.json",
                 "application/json",
                 (" ").getBytes());
-        when(categoryStorage.getCategoriesFromFile(ArgumentMatchers.any(File.class))).thenReturn(Flux.just(category));
-        when(categoryService.save(category)).thenReturn(category);
-        when(categoryService.findByName(category.getName())).thenThrow(new CategoryDoesNotExistException(""));
+        CategoryImportJob job = new CategoryImportJob();
+        when(categoryImportService.startImport(ArgumentMatchers.any(File.class))).thenReturn(job);
 
         // Act
-        MockHttpServletResponse response;
-        try(MockedStatic<CategoryMapper> categoryMapper = mockStatic(CategoryMapper.class)){
-            categoryMapper.when(() -> CategoryMapper.toCategory(inputCategory)).thenReturn(category);
-            categoryMapper.when(() -> CategoryMapper.toOutputCategory(category)).thenReturn(outputCategory);
-            response = mockMvc.perform(multipart("/categories/importjson")
-                            .file(mockFile))
-                    .andReturn().getResponse();
-        }
-        List<OutputCategory> res = mapper.readValue(
-                response.getContentAsString(),
-                mapper.getTypeFactory().constructCollectionType(List.class, OutputCategory.class)
-        );
+        MockHttpServletResponse response = mockMvc.perform(multipart("/categories/importjson")
+                        .file(mockFile))
+                .andReturn().getResponse();
+        OutputCategoryImportJob res = mapper.readValue(response.getContentAsString(), OutputCategoryImportJob.class);
+
         // Assert
-        assertEquals(201, response.getStatus());
-        assertEquals(outputCategory, res.getFirst());
+        assertEquals(202, response.getStatus());
+        assertEquals(job.getId().toString(), res.getId());
+        assertTrue(response.getHeader("Location").endsWith("/categories/importjson/" + job.getId()));
+    }
+
+    @Test
+    void getImportJob() throws Exception {
+        // Arrange
+        CategoryImportJob job = new CategoryImportJob();
+        when(categoryImportService.findJob(job.getId())).thenReturn(job);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(get("/categories/importjson/" + job.getId()))
+                .andReturn().getResponse();
+        OutputCategoryImportJob res = mapper.readValue(response.getContentAsString(), OutputCategoryImportJob.class);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals("PENDING", res.getStatus());
     }
 
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.dto.output.OutputCategory;
+import com.example.funko.category.dto.snapshot.CategorySnapshot;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.model.Description;
 import org.junit.jupiter.api.BeforeEach;
@@ -61,4 +62,19 @@ class CategoryMapperTest {
         assertEquals(inputCategory.getName(), result.getName());
         assertEquals(inputCategory.getDescription(), result.getDescription().getText());
     }
+
+    @Test
+    void toSnapshotAndBack() {
+        // Act
+        CategorySnapshot snapshot = CategoryMapper.toSnapshot(category);
+        Category result = CategoryMapper.fromSnapshot(snapshot);
+
+        // Assert
+        assertNotSame(category, result);
+        assertEquals(category.getId(), result.getId());
+        assertEquals(category.getName(), result.getName());
+        assertEquals(category.getDescription().getText(), result.getDescription().getText());
+        assertEquals(category.getCreatedAt(), result.getCreatedAt());
+        assertEquals(category.getIsDeleted(), result.getIsDeleted());
+    }
 }
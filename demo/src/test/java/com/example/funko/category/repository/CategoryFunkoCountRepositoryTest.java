@@ -0,0 +1,138 @@
+package com.example.funko.category.repository;
+
+import com.example.funko.category.model.Category;
+import com.example.funko.category.model.CategoryFunkoCount;
+import com.example.funko.category.model.Description;
+import com.example.funko.funko.model.Funko;
+import com.example.funko.funko.repository.FunkosRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryFunkoCountRepositoryTest {
+
+    @Autowired
+    private CategoryFunkoCountRepository repository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FunkosRepository funkosRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        funkosRepository.deleteAll();
+        repository.deleteAll();
+        categoryRepository.deleteAll();
+        Description description = new Description();
+        description.setText("description");
+        category = new Category();
+        category.setName("countTest");
+        category.setDescription(description);
+        category = categoryRepository.save(category);
+        repository.save(new CategoryFunkoCount(category.getId(), 0L));
+    }
+
+    @Test
+    void adjust() {
+        // Act
+        repository.adjust(category.getId(), 2);
+        repository.adjust(category.getId(), -1);
+
+        // Assert
+        assertEquals(1L, repository.findFunkoCount(category.getId()).orElseThrow());
+    }
+
+    @Test
+    void savingTheCategoryDoesNotTouchTheCount() {
+        // Arrange
+        repository.adjust(category.getId(), 3);
+
+        // Act
+        category.setName("renamed");
+        categoryRepository.save(category);
+
+        // Assert
+        assertEquals(3L, repository.findFunkoCount(category.getId()).orElseThrow());
+    }
+
+    @Test
+    void insertCountedCreatesTheMissingCount() {
+        // Arrange
+        repository.deleteAll(); // Como una categoría importada, sin contador
+        funkosRepository.save(funko("funko1"));
+
+        // Act
+        int adjusted = repository.adjust(category.getId(), 1);
+        int inserted = repository.insertCounted(category.getId());
+        int insertedAgain = repository.insertCounted(category.getId());
+
+        // Assert
+        assertAll(
+                () -> assertEquals(0, adjusted),
+                () -> assertEquals(1, inserted),
+                () -> assertEquals(0, insertedAgain),
+                () -> assertEquals(1L, repository.findFunkoCount(category.getId()).orElseThrow())
+        );
+    }
+
+    @Test
+    void reconcile() {
+        // Arrange
+        funkosRepository.save(funko("funko1"));
+        funkosRepository.save(funko("funko2"));
+        repository.adjust(category.getId(), 5); // Contador desincronizado
+
+        // Act
+        int fixed = repository.reconcile();
+        int fixedAgain = repository.reconcile();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, fixed),
+                () -> assertEquals(0, fixedAgain),
+                () -> assertEquals(2L, repository.findFunkoCount(category.getId()).orElseThrow())
+        );
+    }
+
+    @Test
+    void insertMissing() {
+        // Arrange
+        repository.deleteAll();
+        funkosRepository.saveAll(List.of(funko("funko1"), funko("funko2")));
+
+        // Act
+        int inserted = repository.insertMissing();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, inserted),
+                () -> assertEquals(2L, repository.findFunkoCount(category.getId()).orElseThrow())
+        );
+    }
+
+    private Funko funko(String name) {
+        Funko funko = new Funko();
+        funko.setId(null);
+        funko.setName(name);
+        funko.setPrice(10.0);
+        funko.setStock(1);
+        funko.setReleaseDate(LocalDate.parse("2022-01-01"));
+        funko.setCategory(category);
+        return funko;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.funko.category.repository;
+
+import com.example.funko.category.model.Category;
+import com.example.funko.category.model.Description;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Comprueba con las estadísticas de Hibernate que las categorías se leen de la caché de segundo nivel.
+ * Los tests no son transaccionales para que cada llamada al repositorio use su propio contexto de persistencia
+ * y no se lea de la caché de primer nivel.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryRepositoryCacheTest {
+
+    @Autowired
+    private CategoryRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        Description description = new Description();
+        description.setText("description");
+        category = new Category();
+        category.setName("cacheTest");
+        category.setDescription(description);
+        category = repository.save(category);
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findByIdIsServedFromSecondLevelCache() {
+        // Act
+        repository.findById(category.getId());
+        repository.findById(category.getId());
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, statistics.getSecondLevelCacheMissCount()),
+                () -> assertEquals(1, statistics.getSecondLevelCacheHitCount()),
+                () -> assertEquals(1, statistics.getPrepareStatementCount())
+        );
+    }
+
+    @Test
+    void findByNameIsServedFromQueryCache() {
+        // Act
+        repository.findByName(category.getName());
+        repository.findByName(category.getName());
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, statistics.getQueryCacheMissCount()),
+                () -> assertEquals(1, statistics.getQueryCacheHitCount()),
+                () -> assertEquals(1, statistics.getPrepareStatementCount())
+        );
+    }
+
+    @Test
+    void updatingCategoriesInvalidatesQueryCache() {
+        // Arrange
+        repository.findByName(category.getName());
+        category.setName("renamed");
+        repository.save(category);
+        statistics.clear();
+
+        // Act
+        boolean oldNameFound = repository.findByName("cacheTest").isPresent();
+
+        // Assert
+        assertAll(
+                () -> assertFalse(oldNameFound),
+                () -> assertEquals(0, statistics.getQueryCacheHitCount())
+        );
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.funko.category.service;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.category.model.Category;
+import com.example.funko.category.repository.CategoryRepository;
+import com.example.funko.category.storage.json.CategoryJsonStorageImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryImportServiceImplTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private CategoryImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new CategoryImportServiceImpl(
+                categoryRepository,
+                new CategoryJsonStorageImpl(),
+                new NegativeLookupCache(100, Duration.ofMinutes(1)),
+                transactionManager,
+                Runnable::run, // La importación se ejecuta en el hilo del test
+                2
+        );
+    }
+
+    @Test
+    void importInsertsInBatches() throws IOException {
+        // Arrange
+        File file = categoriesFile("""
+                [
+                  {"name": "SERIE", "description": "A TV series."},
+                  {"name": "DISNEY", "description": "Disney-related content."},
+                  {"name": "OTROS", "description": "Other types of content."}
+                ]
+                """);
+        when(categoryRepository.findExistingNames(anyCollection())).thenReturn(List.of());
+
+        // Act
+        CategoryImportJob job = importService.startImport(file);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Category>> batches = ArgumentCaptor.forClass(List.class);
+        verify(categoryRepository, times(2)).insertAll(batches.capture());
+        verify(categoryRepository, times(2)).findExistingNames(anyCollection()); // Una consulta por lote
+        assertAll(
+                () -> assertEquals(CategoryImportJob.Status.COMPLETED, job.getStatus()),
+                () -> assertEquals(3, job.getImported().get()),
+                () -> assertEquals(2, batches.getAllValues().get(0).size()),
+                () -> assertEquals(1, batches.getAllValues().get(1).size()),
+                () -> assertFalse(file.exists())
+        );
+    }
+
+    @Test
+    void importFailsWithoutInsertingIfANameExists() throws IOException {
+        // Arrange
+        File file = categoriesFile("""
+                [
+                  {"name": "SERIE", "description": "A TV series."},
+                  {"name": "DISNEY", "description": "Disney-related content."}
+                ]
+                """);
+        when(categoryRepository.findExistingNames(anyCollection())).thenReturn(List.of("disney"));
+
+        // Act
+        CategoryImportJob job = importService.startImport(file);
+
+        // Assert
+        verify(categoryRepository, never()).insertAll(any());
+        assertAll(
+                () -> assertEquals(CategoryImportJob.Status.FAILED, job.getStatus()),
+                () -> assertEquals(1, job.getErrorCount().get()),
+                () -> assertEquals(0, job.getImported().get())
+        );
+    }
+
+    @Test
+    void importThatFailsHalfwayReportsWhatWasImported() throws IOException {
+        // Arrange
+        File file = categoriesFile("""
+                [
+                  {"name": "SERIE", "description": "A TV series."},
+                  {"name": "DISNEY", "description": "Disney-related content."},
+                  {"name": "OTROS", "description": "Other types of content."}
+                ]
+                """);
+        when(categoryRepository.findExistingNames(anyCollection())).thenReturn(List.of());
+        doNothing().doThrow(new IllegalStateException("duplicate key")).when(categoryRepository).insertAll(anyList());
+
+        // Act
+        CategoryImportJob job = importService.startImport(file);
+
+        // Assert
+        assertAll(
+                () -> assertEquals(CategoryImportJob.Status.FAILED, job.getStatus()),
+                () -> assertEquals(2, job.getImported().get()), // El primer lote ya está confirmado
+                () -> assertTrue(job.getErrors().stream().anyMatch(error -> error.contains("Se han importado 2")))
+        );
+    }
+
+    @Test
+    void importFailsOnRepeatedNamesInTheFile() throws IOException {
+        // Arrange
+        File file = categoriesFile("""
+                [
+                  {"name": "SERIE", "description": "A TV series."},
+                  {"name": "serie", "description": "Another TV series."}
+                ]
+                """);
+
+        // Act
+        CategoryImportJob job = importService.startImport(file);
+
+        // Assert
+        verify(categoryRepository, never()).findExistingNames(anyCollection());
+        verify(categoryRepository, never()).insertAll(any());
+        assertEquals(CategoryImportJob.Status.FAILED, job.getStatus());
+    }
+
+    private File categoriesFile(String json) throws IOException {
+        Path file = tempDir.resolve("categories.json");
+        Files.writeString(file, json);
+        return file.toFile();
+    }
+}
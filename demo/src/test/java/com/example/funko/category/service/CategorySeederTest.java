@@ -0,0 +1,72 @@
+package com.example.funko.category.service;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.category.model.Category;
+import com.example.funko.category.repository.CategoryRepository;
+import com.example.funko.category.storage.json.CategoryJsonStorageImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategorySeederTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private CategorySeeder seeder;
+
+    @BeforeEach
+    void setUp() {
+        CategoryImportService importService = new CategoryImportServiceImpl(
+                categoryRepository,
+                new CategoryJsonStorageImpl(),
+                new NegativeLookupCache(100, Duration.ofMinutes(1)),
+                transactionManager,
+                Runnable::run, // La importación se ejecuta en el hilo del test
+                500
+        );
+        seeder = new CategorySeeder(importService, meterRegistry, "data/categories.json");
+    }
+
+    @Test
+    void seedSkipsExistingCategoriesWithOneQuery() {
+        // Arrange
+        when(categoryRepository.findExistingNames(anyCollection())).thenReturn(List.of("serie"));
+        when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+
+        // Act
+        CategoryImportJob job = seeder.seed();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Category>> batch = ArgumentCaptor.forClass(List.class);
+        verify(categoryRepository, times(1)).findExistingNames(anyCollection());
+        verify(categoryRepository, times(1)).insertAll(batch.capture());
+        assertAll(
+                () -> assertEquals(CategoryImportJob.Status.COMPLETED, job.getStatus()),
+                () -> assertEquals(4, job.getImported().get()),
+                () -> assertEquals(1, job.getSkipped().get()),
+                () -> assertTrue(batch.getValue().stream().noneMatch(category -> category.getName().equals("SERIE")))
+        );
+    }
+}
@@ -1,22 +1,31 @@
 package com.example.funko.category.service;
 
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.category.dto.input.InputCategory;
 import com.example.funko.category.exceptions.CategoryAlreadyExistsException;
 import com.example.funko.category.exceptions.CategoryDoesNotExistException;
+import com.example.funko.category.exceptions.CategoryHasFunkosException;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.model.Description;
+import com.example.funko.category.repository.CategoryFunkoCountRepository;
 import com.example.funko.category.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CategoryServiceImplTest {
@@ -24,13 +33,22 @@ class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
-    @InjectMocks
+    @Mock
+    private CategoryFunkoCountRepository funkoCountRepository;
+
+    @Mock
+    private NegativeLookupCache negativeLookups;
+
+    @Mock
+    private EntityManager entityManager;
+
     private CategoryServiceImpl categoryService;
 
     private Category category;
 
     @BeforeEach
     void setUp() {
+        categoryService = new CategoryServiceImpl(categoryRepository, funkoCountRepository, null, negativeLookups, entityManager, 100, Duration.ofMinutes(5));
         category = new Category();
         Description description = new Description();
         description.setText("description");
@@ -74,10 +92,28 @@ class CategoryServiceImplTest {
         assertEquals(category, result);
     }
 
+    @Test
+    void saveForgetsTheMissedNameLookupOnlyAfterCommit() {
+        // Arrange
+        when(categoryRepository.save(any(Category.class))).thenReturn(category);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            categoryService.save(new InputCategory("test", "description"));
+
+            // Assert
+            verify(negativeLookups, never()).forget(any(), any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(negativeLookups).forget(CategoryServiceImpl.NEGATIVE_NAME_LOOKUP, "test");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     void saveAnExistingCategory() {
         // Arrange
-        when(categoryRepository.findByName(category.getName())).thenThrow(new CategoryAlreadyExistsException(""));
+        when(categoryRepository.findFirstByNameIgnoreCase(category.getName())).thenThrow(new CategoryAlreadyExistsException(""));
 
         // Act & Assert
         assertThrows(
@@ -92,7 +128,7 @@ class CategoryServiceImplTest {
         Category updatedCategory = category;
         updatedCategory.setName("updated");
         when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
-        when(categoryRepository.findByName(category.getName())).thenReturn(Optional.of(category));
+        when(categoryRepository.findFirstByNameIgnoreCase(category.getName())).thenReturn(Optional.of(category));
         when(categoryRepository.save(category)).thenReturn(updatedCategory);
 
         // Act
@@ -126,10 +162,36 @@ class CategoryServiceImplTest {
         assertTrue(result.getIsDeleted());
     }
 
+    @Test
+    void deleteCreatesTheMissingCounterBeforeCheckingForFunkos() {
+        // Arrange
+        when(categoryRepository.findById(category.getId())).thenReturn(Optional.of(category));
+        when(funkoCountRepository.findFunkoCount(category.getId())).thenReturn(Optional.empty(), Optional.of(2L));
+
+        // Act & Assert
+        assertThrows(CategoryHasFunkosException.class, () -> categoryService.delete(category.getId(), false));
+        verify(funkoCountRepository).insertCounted(category.getId());
+        verify(categoryRepository, never()).deleteById(category.getId());
+    }
+
+    @Test
+    void adjustFunkoCountAdjustsAgainWhenAnotherTransactionCreatesTheCounter() {
+        // Arrange
+        UUID categoryId = UUID.randomUUID();
+        when(funkoCountRepository.adjust(categoryId, 1L)).thenReturn(0, 1);
+        when(funkoCountRepository.insertCounted(categoryId)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act
+        categoryService.adjustFunkoCount(categoryId, 1L);
+
+        // Assert
+        verify(funkoCountRepository, times(2)).adjust(categoryId, 1L);
+    }
+
     @Test
     void findByName() {
         // Arrange
-        when(categoryRepository.findByName(category.getName())).thenReturn(Optional.of(category));
+        when(categoryRepository.findFirstByNameIgnoreCase(category.getName())).thenReturn(Optional.of(category));
 
         // Act
         Category result = categoryService.findByName(category.getName());
@@ -138,6 +200,24 @@ class CategoryServiceImplTest {
         assertEquals(category, result);
     }
 
+    @Test
+    void findByNameIgnoresCaseAndUsesTheIndex() {
+        // Arrange
+        when(categoryRepository.findFirstByNameIgnoreCase("TEST")).thenReturn(Optional.of(category));
+
+        // Act
+        Category result = categoryService.findByName("TEST");
+        Category again = categoryService.findByName("Test");
+
+        // Assert
+        assertAll(
+                () -> assertEquals(category.getId(), result.getId()),
+                () -> assertEquals(category.getId(), again.getId()),
+                () -> verify(categoryRepository, times(1)).findFirstByNameIgnoreCase(any()), // La segunda sale del índice
+                () -> verify(categoryRepository, never()).findAll()
+        );
+    }
+
     @Test
     void findAll() {
         // Arrange
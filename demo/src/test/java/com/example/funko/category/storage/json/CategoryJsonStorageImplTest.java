@@ -0,0 +1,143 @@
+package com.example.funko.category.storage.json;
+
+import com.example.funko.category.dto.input.InputCategory;
+import com.example.funko.category.model.Category;
+import com.example.funko.category.model.Description;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryJsonStorageImplTest {
+
+    private static final String JSON = """
+            [
+              {"name": "SERIE", "description": "A TV series."},
+              {"name": "DISNEY", "description": "Disney-related content."},
+              {"name": "OTROS", "description": "Other types of content."}
+            ]
+            """;
+
+    private final CategoryJsonStorageImpl storage = new CategoryJsonStorageImpl();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getCategoriesFromFileCompletes() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("categories.json");
+        Files.writeString(file, JSON);
+
+        // Act
+        List<InputCategory> result = storage.getCategoriesFromFile(file.toFile()).collectList().block();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(3, result.size()),
+                () -> assertEquals("SERIE", result.get(0).getName()),
+                () -> assertEquals("Other types of content.", result.get(2).getDescription())
+        );
+    }
+
+    @Test
+    void getCategoriesFromStreamOnlyEmitsWhatIsRequested() {
+        // Arrange
+        List<InputCategory> received = new ArrayList<>();
+        boolean[] completed = {false};
+
+        // Act
+        storage.getCategoriesFromStream(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)))
+                .subscribe(new BaseSubscriber<>() {
+                    @Override
+                    protected void hookOnSubscribe(Subscription subscription) {
+                        request(1);
+                    }
+
+                    @Override
+                    protected void hookOnNext(InputCategory value) {
+                        received.add(value);
+                    }
+
+                    @Override
+                    protected void hookOnComplete() {
+                        completed[0] = true;
+                    }
+                });
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, received.size()),
+                () -> assertFalse(completed[0])
+        );
+    }
+
+    @Test
+    void getCategoriesFromStreamFailsIfNotAnArray() {
+        // Act & Assert
+        assertThrows(
+                Exception.class,
+                () -> storage.getCategoriesFromStream(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)))
+                        .collectList()
+                        .block()
+        );
+    }
+
+    @Test
+    void writeCategories() throws IOException {
+        // Arrange
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long written = storage.writeCategories(outputStream, Stream.of(category("SERIE"), category("DISNEY")));
+        List<InputCategory> result = storage.getCategoriesFromStream(new ByteArrayInputStream(outputStream.toByteArray()))
+                .collectList()
+                .block();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(2, written),
+                () -> assertEquals("SERIE", result.get(0).getName()),
+                () -> assertEquals("DISNEY", result.get(1).getName())
+        );
+    }
+
+    @Test
+    void saveCategoriesToGzipFile() throws IOException {
+        // Arrange
+        File file = tempDir.resolve("categories.json.gz").toFile();
+
+        // Act
+        storage.saveCategoriesToFile(file, Stream.of(category("SERIE")));
+        List<InputCategory> result = storage.getCategoriesFromStream(new GZIPInputStream(new FileInputStream(file)))
+                .collectList()
+                .block();
+
+        // Assert
+        assertEquals("SERIE", result.getFirst().getName());
+    }
+
+    private Category category(String name) {
+        Description description = new Description();
+        description.setText("description");
+        Category category = new Category();
+        category.setName(name);
+        category.setDescription(description);
+        return category;
+    }
+}
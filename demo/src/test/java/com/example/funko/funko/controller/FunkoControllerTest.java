@@ -29,7 +29,7 @@ import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "orders.indexes.ensure-on-startup=false")
 @AutoConfigureMockMvc
 @ExtendWith(MockitoExtension.class)
 class FunkoControllerTest {
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.example.funko.category.model.Category;
 import com.example.funko.funko.dto.input.InputFunko;
 import com.example.funko.funko.dto.output.OutputFunko;
+import com.example.funko.funko.dto.snapshot.FunkoSnapshot;
 import com.example.funko.funko.model.Funko;
 import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
@@ -67,4 +68,24 @@ class FunkoMapperTest {
         assertEquals(funko.getCreatedAt().toString(), result.getCreatedAt());
         assertEquals(funko.getUpdatedAt().toString(), result.getUpdatedAt());
     }
+
+    @Test
+    void toSnapshotAndBack() {
+        // Arrange
+        funko.setStock(5);
+
+        // Act
+        FunkoSnapshot snapshot = FunkoMapper.toSnapshot(funko);
+        Funko result = FunkoMapper.fromSnapshot(snapshot);
+
+        // Assert
+        assertEquals(category.getName(), snapshot.categoryName());
+        assertNotSame(funko, result);
+        assertEquals(funko.getId(), result.getId());
+        assertEquals(funko.getName(), result.getName());
+        assertEquals(funko.getPrice(), result.getPrice());
+        assertEquals(funko.getStock(), result.getStock());
+        assertEquals(funko.getCategory().getName(), result.getCategory().getName());
+        assertEquals(funko.getCreatedAt(), result.getCreatedAt());
+    }
 }
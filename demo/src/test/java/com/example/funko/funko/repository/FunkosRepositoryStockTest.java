@@ -0,0 +1,133 @@
+package com.example.funko.funko.repository;
+
+import com.example.funko.category.model.Category;
+import com.example.funko.category.model.Description;
+import com.example.funko.category.repository.CategoryRepository;
+import com.example.funko.funko.model.Funko;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FunkosRepositoryStockTest {
+
+    private static final int THREADS = 200;
+    private static final int STOCK = 25;
+
+    @Autowired
+    private FunkosRepository repository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Funko funko;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        categoryRepository.deleteAll();
+        Description description = new Description();
+        description.setText("description");
+        Category category = new Category();
+        category.setName("stockTest");
+        category.setDescription(description);
+        category = categoryRepository.save(category);
+
+        funko = new Funko();
+        funko.setId(null);
+        funko.setName("stockFunko");
+        funko.setPrice(10.0);
+        funko.setStock(STOCK);
+        funko.setReleaseDate(LocalDate.parse("2022-01-01"));
+        funko.setCategory(category);
+        funko = repository.save(funko);
+    }
+
+    @Test
+    void decrementStockDoesNotGoBelowZero() {
+        // Act
+        int first = repository.decrementStock(funko.getId(), STOCK);
+        int second = repository.decrementStock(funko.getId(), 1);
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, first),
+                () -> assertEquals(0, second),
+                () -> assertEquals(0, repository.findById(funko.getId()).orElseThrow().getStock())
+        );
+    }
+
+    @Test
+    void decrementStockRejectsNonPositiveAmounts() {
+        // Act
+        int negative = repository.decrementStock(funko.getId(), -5);
+        int zero = repository.decrementStock(funko.getId(), 0);
+
+        // Assert
+        assertAll(
+                () -> assertEquals(0, negative),
+                () -> assertEquals(0, zero),
+                () -> assertEquals(STOCK, repository.findById(funko.getId()).orElseThrow().getStock())
+        );
+    }
+
+    @Test
+    void decrementStockOfNonExistingFunko() {
+        // Act & Assert
+        assertEquals(0, repository.decrementStock(-1L, 1));
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await(); // Todos los hilos empiezan a la vez
+                return repository.decrementStock(funko.getId(), 1);
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        int finalSold = sold;
+        assertAll(
+                () -> assertEquals(STOCK, finalSold),
+                () -> assertEquals(0, repository.findById(funko.getId()).orElseThrow().getStock())
+        );
+    }
+
+    @Test
+    void incrementStock() {
+        // Act
+        repository.decrementStock(funko.getId(), 5);
+        repository.incrementStock(funko.getId(), 5);
+
+        // Assert
+        assertEquals(STOCK, repository.findById(funko.getId()).orElseThrow().getStock());
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.funko.funko.services;
 
+import com.example.cache.negative.NegativeLookupCache;
 import com.example.funko.category.exceptions.CategoryDoesNotExistException;
 import com.example.funko.category.model.Category;
 import com.example.funko.category.repository.CategoryRepository;
 import com.example.funko.funko.exceptions.FunkoNotFoundException;
+import com.example.funko.funko.exceptions.FunkoOutOfStockException;
 import com.example.funko.funko.model.Funko;
 import com.example.funko.funko.repository.FunkosRepository;
 import com.example.funko.websocket.config.WebSocketConfig;
@@ -14,10 +16,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +37,15 @@ class FunkoServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private NegativeLookupCache negativeLookups;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private OptimisticLockRetry optimisticLockRetry;
+
     @Mock
     private WebSocketHandler webSocketHandler;
 
@@ -81,6 +96,19 @@ class FunkoServiceImplTest {
         );
     }
 
+    @Test
+    void findByIdOfKnownMissDoesNotQueryRepository() {
+        // Arrange
+        when(negativeLookups.isKnownMiss(FunkoServiceImpl.NEGATIVE_LOOKUP, funko.getId())).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(
+                FunkoNotFoundException.class,
+                () -> funkoService.findById(funko.getId())
+        );
+        verify(funkosRepository, never()).findById(any());
+    }
+
     @Test
     void save() {
         // Arrange
@@ -117,6 +145,7 @@ class FunkoServiceImplTest {
         when(funkosRepository.findById(funko.getId())).thenReturn(Optional.of(funko));
         when(categoryRepository.findByName(category.getName())).thenReturn(Optional.of(category));
         when(funkosRepository.save(funko)).thenReturn(updatedFunko);
+        runRetriedActions();
 
         // Act
         Funko result = funkoService.update(funko.getId(), updatedFunko);
@@ -129,6 +158,7 @@ class FunkoServiceImplTest {
     void updateNonExistingFunko() {
         // Arrange
         when(funkosRepository.findById(funko.getId())).thenReturn(Optional.empty());
+        runRetriedActions();
 
         // Act & Assert
         assertThrows(
@@ -141,19 +171,21 @@ class FunkoServiceImplTest {
     void delete() {
         // Arrange
         when(funkosRepository.findById(funko.getId())).thenReturn(Optional.of(funko));
+        runRetriedActions();
 
         // Act
         Funko result = funkoService.delete(funko.getId());
 
         // Assert
         assertEquals(funko, result);
-        verify(funkosRepository).deleteById(funko.getId());
+        verify(funkosRepository).delete(funko);
     }
 
     @Test
     void deleteNonExistingFunko() {
         // Arrange
         when(funkosRepository.findById(funko.getId())).thenReturn(Optional.empty());
+        runRetriedActions();
 
         // Act & Assert
         assertThrows(
@@ -162,6 +194,61 @@ class FunkoServiceImplTest {
         );
     }
 
+    @Test
+    void reserveStockDecrementsEveryFunkoAndEvictsThem() {
+        // Arrange
+        Cache cache = mock(Cache.class);
+        when(funkosRepository.decrementStock(1L, 4)).thenReturn(1);
+        when(funkosRepository.decrementStock(2L, 3)).thenReturn(1);
+        when(funkosRepository.findAllByIdIn(any())).thenReturn(List.of(funko));
+        when(cacheManager.getCache("funkos")).thenReturn(cache);
+
+        // Act
+        List<Funko> result = funkoService.reserveStock(Map.of(1L, 4, 2L, 3));
+
+        // Assert
+        assertEquals(List.of(funko), result);
+        verify(cache).evict(1L);
+        verify(cache).evict(2L);
+        verify(funkosRepository, never()).save(any());
+    }
+
+    @Test
+    void reserveStockWithoutEnoughStock() {
+        // Arrange
+        when(funkosRepository.decrementStock(1L, 4)).thenReturn(0);
+        when(funkosRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(
+                FunkoOutOfStockException.class,
+                () -> funkoService.reserveStock(Map.of(1L, 4, 2L, 3))
+        );
+        verify(funkosRepository, never()).decrementStock(2L, 3); // Las líneas se procesan en orden de id
+    }
+
+    @Test
+    void reserveStockOfNonExistingFunko() {
+        // Arrange
+        when(funkosRepository.decrementStock(2L, 1)).thenReturn(0);
+        when(funkosRepository.decrementStock(1L, 1)).thenReturn(1);
+        when(funkosRepository.existsById(2L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(
+                FunkoNotFoundException.class,
+                () -> funkoService.reserveStock(Map.of(1L, 1, 2L, 1))
+        );
+    }
+
+    // El mock de los reintentos ejecuta la acción una vez, como si no hubiera conflicto
+    private void runRetriedActions() {
+        when(optimisticLockRetry.execute(anyString(), any())).thenAnswer(invocation -> {
+            Supplier<?> action = invocation.getArgument(1);
+            return action.get();
+        });
+    }
+
     @Test
     void findByName() {
         // Arrange
@@ -0,0 +1,105 @@
+package com.example.funko.funko.services;
+
+import com.example.funko.funko.exceptions.FunkoUpdateConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticLockRetryTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OptimisticLockRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        when(meterRegistryProvider.getIfAvailable(any())).thenReturn(meterRegistry);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        retry = new OptimisticLockRetry(transactionManager, meterRegistryProvider, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+    }
+
+    @Test
+    void retriesUntilTheActionSucceeds() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        String result = retry.execute("update", () -> {
+            if (attempts.incrementAndGet() < 3) throw new ObjectOptimisticLockingFailureException("Funko", 1L);
+            return "ok";
+        });
+
+        // Assert
+        assertAll(
+                () -> assertEquals("ok", result),
+                () -> assertEquals(3, attempts.get()),
+                () -> assertEquals(2.0, meterRegistry.counter("funkos.optimistic.conflicts", "operation", "update").count()),
+                () -> assertEquals(2.0, meterRegistry.counter("funkos.optimistic.retries", "operation", "update").count()),
+                () -> verify(transactionManager, times(2)).rollback(any()),
+                () -> verify(transactionManager).commit(any())
+        );
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(
+                FunkoUpdateConflictException.class,
+                () -> retry.execute("update", () -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Funko", 1L);
+                })
+        );
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("funkos.optimistic.exhausted", "operation", "update").count());
+    }
+
+    @Test
+    void otherErrorsAreNotRetried() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(
+                IllegalStateException.class,
+                () -> retry.execute("update", () -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("error");
+                })
+        );
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void backoffStaysWithinTheLimit() {
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long backoff = retry.backoff(attempt);
+            assertTrue(backoff >= 0 && backoff <= 5);
+        }
+    }
+}
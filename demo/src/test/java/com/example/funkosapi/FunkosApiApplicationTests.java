@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.annotation.EnableCaching;
 
-@SpringBootTest
+@SpringBootTest(properties = "orders.indexes.ensure-on-startup=false")
 class FunkosApiApplicationTests {
 
 	@Test
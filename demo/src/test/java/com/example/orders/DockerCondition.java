@@ -0,0 +1,26 @@
+package com.example.orders;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+
+/**
+ * Salta los tests con contenedores cuando no hay Docker, salvo que se pida lo contrario
+ * con la propiedad tests.require-docker: entonces se ejecutan y fallan al arrancar el contenedor.
+ */
+class DockerCondition implements ExecutionCondition {
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerCondition.class);
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        if (Boolean.getBoolean("tests.require-docker") || DockerClientFactory.instance().isDockerAvailable()) {
+            return ConditionEvaluationResult.enabled("Docker disponible o requerido");
+        }
+        logger.warn("Docker no está disponible, se salta {}", context.getDisplayName());
+        return ConditionEvaluationResult.disabled("Docker no está disponible (con -PrequireDocker el test falla en vez de saltarse)");
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.orders;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base de los tests que necesitan un MongoDB de verdad: cada clase arranca un contenedor
+ * y Spring Boot se conecta a él con @ServiceConnection.
+ * Sin Docker los tests se saltan con un aviso, salvo con ./gradlew test -PrequireDocker,
+ * que los hace fallar para que la integración continua no los dé por buenos sin ejecutarlos.
+ */
+@Testcontainers
+@ExtendWith(DockerCondition.class)
+public abstract class MongoContainerTest {
+
+    @Container
+    @ServiceConnection
+    protected static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+}
@@ -0,0 +1,151 @@
+package com.example.orders.controller;
+
+import com.example.orders.models.Order;
+import com.example.orders.service.OrderService;
+import com.example.utils.CursorPage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "orders.indexes.ensure-on-startup=false")
+@AutoConfigureMockMvc
+class OrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService service;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        order.setUserId(1L);
+        order.setOrderLines(List.of());
+    }
+
+    @Test
+    void getAllOrdersReturnsTheNextCursor() throws Exception {
+        // Arrange
+        ObjectId after = new ObjectId();
+        String next = order.getId().toHexString();
+        when(service.findAll(eq(Optional.of(after)), eq(Optional.of(1L)), any(), any(), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(order), 1, next));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                        get("/orders?after={after}&userId=1&size=1", after.toHexString())
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+        JsonNode body = mapper.readTree(response.getContentAsString());
+
+        // Assert
+        assertAll(
+                () -> assertEquals(200, response.getStatus()),
+                () -> assertEquals(1, body.get("content").size()),
+                () -> assertEquals(next, body.get("nextCursor").asText()),
+                () -> assertTrue(response.getHeader("link").contains("after=" + next)),
+                () -> assertTrue(response.getHeader("link").contains("userId=1"))
+        );
+    }
+
+    @Test
+    void getAllOrdersNextLinkKeepsTheQueryEncodedOnce() throws Exception {
+        // Arrange
+        String next = order.getId().toHexString();
+        when(service.findAll(any(), eq(Optional.of(1L)), any(), any(), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(order), 1, next));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                        get(URI.create("/orders?userId=1&size=1&from=2024-01-01T10%3A00%3A00"))
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+
+        // Assert
+        assertAll(
+                () -> assertTrue(response.getHeader("link").contains("from=2024-01-01T10%3A00%3A00")),
+                () -> assertFalse(response.getHeader("link").contains("%25")) // Sin codificar dos veces
+        );
+    }
+
+    @Test
+    void getAllOrdersLastPageHasNoLink() throws Exception {
+        // Arrange
+        when(service.findAll(any(), any(), any(), any(), eq(20)))
+                .thenReturn(new CursorPage<>(List.of(order), 20, null));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                        get("/orders").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("link"));
+    }
+
+    @Test
+    void getOrderById() throws Exception {
+        // Arrange
+        when(service.findById(order.getId())).thenReturn(order);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                        get("/orders/" + order.getId().toHexString())
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals(order.getId().toHexString(), mapper.readTree(response.getContentAsString()).get("id").asText());
+    }
+
+    @Test
+    void saveOrderWithANegativeAmountIsRejected() throws Exception {
+        // Arrange: -5 unidades sumarían stock en lugar de descontarlo
+        String body = """
+                {"userId": 1,
+                 "orderLines": [{"funkoId": 1, "amount": -5}],
+                 "address": {"street": "Calle Mayor", "numer": "1", "city": "Madrid", "province": "Madrid",
+                             "country": "España", "postalCode": "28001"}}
+                """;
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                        post("/orders")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(400, response.getStatus());
+        verify(service, never()).save(any());
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.orders.controller;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la exportación de pedidos reactiva (/orders/export) con la bloqueante (/orders/export/blocking).
+ * El servidor tiene pocos hilos a propósito: con la bloqueante cada exportación ocupa uno hasta terminar
+ * y el resto esperan, con la reactiva el hilo se libera en cuanto se lanza la consulta.
+ * La prueba de rendimiento no se lanza con los tests normales, sino con ./gradlew benchmark.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"server.tomcat.threads.max=8", "server.tomcat.threads.min-spare=8"}
+)
+class OrderExportBenchmarkTest extends MongoContainerTest {
+
+    private static final int ORDERS = 20_000;
+    private static final int CONCURRENT_EXPORTS = 32;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    // Cada respuesta se lee en su propio hilo, así el cliente no limita cuántas exportaciones avanzan a la vez
+    private final ExecutorService readers = Executors.newFixedThreadPool(CONCURRENT_EXPORTS);
+
+    @AfterEach
+    void tearDown() {
+        readers.shutdownNow();
+    }
+
+    @BeforeAll
+    static void loadOrders(@Autowired MongoTemplate mongoTemplate) {
+        mongoTemplate.remove(new Query(), Order.class);
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setUserId((long) (i % 100));
+            order.setOrderLines(List.of(OrderLine.builder().funkoId(1L).amount(1).price(10.0).build()));
+            order.setTotalItems(1);
+            order.setTotal(10.0);
+            orders.add(order);
+        }
+        mongoTemplate.insert(orders, Order.class);
+    }
+
+    @Test
+    void bothPathsExportTheSameOrders() {
+        // Act
+        List<String> reactive = export("/orders/export?userId=7").join();
+        List<String> blocking = export("/orders/export/blocking?userId=7").join();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(ORDERS / 100, reactive.size()),
+                () -> assertEquals(reactive, blocking)
+        );
+    }
+
+    @Test
+    @Tag("benchmark")
+    void concurrentExports() {
+        // Se calienta cada camino antes de medir
+        export("/orders/export").join();
+        export("/orders/export/blocking").join();
+
+        Result blocking = run("/orders/export/blocking");
+        Result reactive = run("/orders/export");
+
+        System.out.println("Exportaciones simultáneas: " + CONCURRENT_EXPORTS + " de " + ORDERS + " pedidos cada una");
+        System.out.println("  bloqueante: " + blocking);
+        System.out.println("  reactiva:   " + reactive);
+        assertEquals((long) CONCURRENT_EXPORTS * ORDERS, blocking.lines());
+        assertEquals((long) CONCURRENT_EXPORTS * ORDERS, reactive.lines());
+    }
+
+    private record Result(long millis, long slowestStartMillis, long lines, int peakThreads) {
+        @Override
+        public String toString() {
+            return millis + " ms en total, la exportación que más ha esperado empezó a los " + slowestStartMillis
+                    + " ms, " + lines + " pedidos, pico de " + peakThreads + " hilos";
+        }
+    }
+
+    private Result run(String path) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        AtomicLong slowestStart = new AtomicLong();
+        List<CompletableFuture<Long>> exports = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_EXPORTS; i++) {
+            exports.add(client.sendAsync(request(path), HttpResponse.BodyHandlers.ofLines())
+                    .thenApplyAsync(response -> {
+                        // Las cabeceras llegan cuando el servidor empieza a atender la exportación
+                        slowestStart.accumulateAndGet((System.nanoTime() - start) / 1_000_000, Math::max);
+                        try (Stream<String> body = response.body()) {
+                            return body.filter(line -> !line.isBlank()).count();
+                        }
+                    }, readers));
+        }
+        long lines = exports.stream().mapToLong(CompletableFuture::join).sum();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(millis, slowestStart.get(), lines, threads.getPeakThreadCount());
+    }
+
+    private CompletableFuture<List<String>> export(String path) {
+        return client.sendAsync(request(path), HttpResponse.BodyHandlers.ofLines())
+                .thenApplyAsync(response -> response.body().filter(line -> !line.isBlank()).toList(), readers);
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.orders.repository;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.config.OrderIndexConfig;
+import com.example.orders.dto.output.OrderSummary;
+import com.example.orders.models.Address;
+import com.example.orders.models.Order;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Import(OrderIndexConfig.class)
+class OrderRepositoryIndexTest extends MongoContainerTest {
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        repository.saveAll(List.of(
+                order(1L, now.minusDays(3), false),
+                order(1L, now.minusDays(1), false),
+                order(1L, now.minusDays(2), false),
+                order(1L, now, true),
+                order(2L, now, false)
+        ));
+    }
+
+    @Test
+    void historyIsFilteredSortedAndPaged() {
+        // Act
+        Page<OrderSummary> page = repository.findByUserIdAndIsDeletedFalseOrderByCreatedAtDesc(1L, PageRequest.of(0, 2));
+
+        // Assert
+        assertAll(
+                () -> assertEquals(3, page.getTotalElements()),
+                () -> assertEquals(2, page.getNumberOfElements()),
+                () -> assertEquals(now.minusDays(1), page.getContent().get(0).getCreatedAt()),
+                () -> assertEquals(now.minusDays(2), page.getContent().get(1).getCreatedAt()),
+                () -> assertEquals(2, page.getContent().get(0).getTotalItems())
+        );
+    }
+
+    @Test
+    void historyQueryUsesTheIndex() {
+        // Arrange: se captura con el profiler la consulta que genera de verdad el método derivado
+        MongoDatabase db = mongoTemplate.getDb();
+        db.runCommand(new Document("profile", 2));
+        repository.findByUserIdAndIsDeletedFalseOrderByCreatedAtDesc(1L, PageRequest.of(0, 10));
+        db.runCommand(new Document("profile", 0));
+        Document command = db.getCollection("system.profile")
+                .find(new Document("ns", db.getName() + ".orders").append("op", "query"))
+                .sort(new Document("ts", -1))
+                .first()
+                .get("command", Document.class);
+        Document find = new Document("find", "orders");
+        for (String option : List.of("filter", "sort", "projection", "skip", "limit")) {
+            if (command.containsKey(option)) find.append(option, command.get(option));
+        }
+
+        // Act
+        Document explain = db.runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+
+        // Assert
+        assertAll(
+                () -> assertTrue(winningPlan.contains("IXSCAN"), winningPlan),
+                () -> assertTrue(winningPlan.contains("user_history"), winningPlan),
+                () -> assertFalse(winningPlan.contains("COLLSCAN"), winningPlan),
+                () -> assertFalse(winningPlan.contains("\"SORT\""), winningPlan) // El índice ya da el orden
+        );
+    }
+
+    private Order order(Long userId, LocalDateTime createdAt, boolean deleted) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setOrderLines(List.of());
+        order.setTotalItems(2);
+        order.setTotal(20.0);
+        order.setCreatedAt(createdAt);
+        order.setIsDeleted(deleted);
+        order.setAddress(Address.builder()
+                .street("Calle Mayor")
+                .numer("1")
+                .city("Madrid")
+                .province("Madrid")
+                .country("España")
+                .postalCode("28001")
+                .build());
+        return order;
+    }
+}
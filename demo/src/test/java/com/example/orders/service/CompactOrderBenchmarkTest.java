@@ -0,0 +1,130 @@
+package com.example.orders.service;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.dto.output.CompactStorageStats;
+import com.example.orders.models.Address;
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.models.StoredAddress;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la forma normal de los pedidos (orders) con la compacta (orders_compact + addresses):
+ * tamaño de los documentos, pedidos insertados por segundo y pedidos leídos por id por segundo.
+ * Se lanza con ./gradlew benchmark.
+ */
+@Tag("benchmark")
+@DataMongoTest
+@Import(CompactOrderServiceImpl.class)
+class CompactOrderBenchmarkTest extends MongoContainerTest {
+
+    private static final int ORDERS = 50_000;
+    private static final int BATCH = 500;
+    private static final int READS = 10_000;
+    // Cada usuario repite siempre la misma dirección
+    private static final int USERS = 2_000;
+
+    @Autowired
+    private CompactOrderService service;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void compareOrderEncodings() {
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(CompactOrder.class);
+        mongoTemplate.dropCollection(StoredAddress.class);
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) orders.add(order(i));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i += BATCH) {
+            mongoTemplate.insert(orders.subList(i, Math.min(i + BATCH, ORDERS)), Order.class);
+        }
+        long insertOrders = elapsedMillis(start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i += BATCH) {
+            service.saveAll(orders.subList(i, Math.min(i + BATCH, ORDERS)));
+        }
+        long insertCompact = elapsedMillis(start);
+
+        List<ObjectId> ids = new ArrayList<>(READS);
+        for (int i = 0; i < READS; i++) ids.add(orders.get(random.nextInt(ORDERS)).getId());
+
+        start = System.nanoTime();
+        ids.forEach(id -> assertNotNull(mongoTemplate.findById(id, Order.class)));
+        long readOrders = elapsedMillis(start);
+
+        start = System.nanoTime();
+        ids.forEach(id -> assertTrue(service.findById(id).isPresent()));
+        long readCompact = elapsedMillis(start);
+
+        CompactStorageStats stats = service.stats();
+        System.out.println("Pedidos: " + ORDERS + " de " + USERS + " usuarios, lecturas por id: " + READS);
+        System.out.println("  normal:   " + stats.getAvgOrderBytes() + " bytes/pedido, " + stats.getOrdersBytes() + " bytes, "
+                + perSecond(ORDERS, insertOrders) + " inserciones/s, " + perSecond(READS, readOrders) + " lecturas/s");
+        System.out.println("  compacta: " + stats.getAvgCompactOrderBytes() + " bytes/pedido, "
+                + (stats.getCompactOrdersBytes() + stats.getAddressesBytes()) + " bytes con " + stats.getAddresses() + " direcciones, "
+                + perSecond(ORDERS, insertCompact) + " inserciones/s, " + perSecond(READS, readCompact) + " lecturas/s");
+        assertEquals(ORDERS, stats.getCompactOrders());
+        assertTrue(stats.getAvgCompactOrderBytes() < stats.getAvgOrderBytes());
+    }
+
+    private Order order(int i) {
+        long userId = i % USERS;
+        int lines = 1 + random.nextInt(3);
+        List<OrderLine> orderLines = new ArrayList<>(lines);
+        double total = 0;
+        for (int j = 0; j < lines; j++) {
+            double price = 5 + random.nextInt(2_000) / 100.0;
+            int amount = 1 + random.nextInt(3);
+            orderLines.add(OrderLine.builder()
+                    .funkoId((long) random.nextInt(500))
+                    .amount(amount)
+                    .price(price)
+                    .name("Funko " + j)
+                    .category("Anime")
+                    .build());
+            total += price * amount;
+        }
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setOrderLines(orderLines);
+        order.setTotalItems(orderLines.stream().mapToInt(OrderLine::getAmount).sum());
+        order.setTotal(total);
+        order.setAddress(Address.builder()
+                .street("Calle del usuario " + userId)
+                .numer(String.valueOf(userId % 100))
+                .city("Madrid")
+                .province("Madrid")
+                .country("España")
+                .postalCode("28001")
+                .build());
+        return order;
+    }
+
+    private long elapsedMillis(long start) {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long perSecond(int operations, long millis) {
+        return operations * 1000L / millis;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.orders.service;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.models.Address;
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.models.StoredAddress;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest(properties = "orders.compact.batch-size=2")
+@Import(CompactOrderServiceImpl.class)
+class CompactOrderServiceImplTest extends MongoContainerTest {
+
+    @Autowired
+    private CompactOrderService service;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), Order.class);
+        mongoTemplate.remove(new Query(), CompactOrder.class);
+        mongoTemplate.remove(new Query(), StoredAddress.class);
+    }
+
+    @Test
+    void compactOrderReadsBackTheSameOrder() {
+        // Arrange
+        Order order = order(address("Calle Mayor"));
+
+        // Act
+        service.saveAll(List.of(order));
+        Order read = service.findById(order.getId()).orElseThrow();
+
+        // Assert
+        Document stored = mongoTemplate.getCollection(CompactOrder.COLLECTION).find().first();
+        assertAll(
+                () -> assertEquals(order, read),
+                () -> assertEquals(3197L, stored.get("t")), // Importe en céntimos
+                () -> assertFalse(stored.containsKey("d")), // No borrado, no se guarda
+                () -> assertFalse(stored.containsKey("userId"))
+        );
+    }
+
+    @Test
+    void ordersWithTheSameAddressShareIt() {
+        // Act
+        service.saveAll(List.of(order(address("Calle Mayor")), order(address("Calle Mayor"))));
+        service.saveAll(List.of(order(address("Calle Mayor")), order(address("Gran Vía"))));
+
+        // Assert
+        assertEquals(4, mongoTemplate.count(new Query(), CompactOrder.class));
+        assertEquals(2, mongoTemplate.count(new Query(), StoredAddress.class));
+    }
+
+    @Test
+    void saveAllDoesNotOverwriteANewerCopy() {
+        // Arrange: el borrado del pedido se copia antes que el guardado anterior
+        Order saved = order(address("Calle Mayor"));
+        Order deleted = order(address("Calle Mayor"));
+        deleted.setId(saved.getId());
+        deleted.setIsDeleted(true);
+        deleted.setUpdatedAt(saved.getUpdatedAt().plusSeconds(1));
+        service.saveAll(List.of(deleted));
+
+        // Act
+        service.saveAll(List.of(saved));
+
+        // Assert
+        assertTrue(service.findById(saved.getId()).orElseThrow().getIsDeleted());
+    }
+
+    @Test
+    void migrateCopiesEveryOrderAndCanBeRepeated() throws Exception {
+        // Arrange
+        List<Order> orders = List.of(order(address("Calle Mayor")), order(address("Calle Mayor")), order(address("Gran Vía")));
+        mongoTemplate.insertAll(orders);
+
+        // Act
+        CompactMigrationJob first = service.startMigration().whenFinished().get(30, TimeUnit.SECONDS);
+        CompactMigrationJob second = service.startMigration().whenFinished().get(30, TimeUnit.SECONDS);
+
+        // Assert
+        assertAll(
+                () -> assertEquals(CompactMigrationJob.Status.COMPLETED, first.getStatus()),
+                () -> assertEquals(3, first.getCopied().get()),
+                () -> assertEquals(3, second.getRead().get()),
+                () -> assertEquals(0, second.getCopied().get()), // Ya estaban con la misma versión
+                () -> assertEquals(3, second.getSkipped().get()),
+                () -> assertEquals(3, mongoTemplate.count(new Query(), CompactOrder.class)),
+                () -> assertEquals(orders.get(2), service.findById(orders.get(2).getId()).orElseThrow())
+        );
+    }
+
+    @Test
+    void migrateDoesNotOverwriteANewerCompactCopy() throws Exception {
+        // Arrange: la doble escritura ya ha guardado una versión más nueva que la que lee la migración
+        Order stale = mongoTemplate.insert(order(address("Calle Mayor")));
+        Order newer = order(address("Calle Mayor"));
+        newer.setId(stale.getId());
+        newer.setTotal(10.0);
+        newer.setUpdatedAt(stale.getUpdatedAt().plusMinutes(1));
+        service.saveAll(List.of(newer));
+
+        // Act
+        service.startMigration().whenFinished().get(30, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(10.0, service.findById(stale.getId()).orElseThrow().getTotal());
+    }
+
+    @Test
+    void removeMissingOnlyRemovesOrdersThatAreNoLongerInOrders() {
+        // Arrange: el segundo pedido ya no está en orders porque se ha archivado
+        Order hot = mongoTemplate.insert(order(address("Calle Mayor")));
+        Order archived = order(address("Calle Mayor"));
+        service.saveAll(List.of(hot, archived));
+
+        // Act
+        long removed = service.removeMissing(List.of(hot.getId(), archived.getId()));
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, removed),
+                () -> assertTrue(service.findById(hot.getId()).isPresent()),
+                () -> assertTrue(service.findById(archived.getId()).isEmpty())
+        );
+    }
+
+    private Order order(Address address) {
+        // Mongo guarda las fechas en milisegundos
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return Order.builder()
+                .userId(1L)
+                .orderLines(List.of(
+                        OrderLine.builder().funkoId(1L).amount(2).price(12.99).name("Goku").category("Anime").build(),
+                        OrderLine.builder().funkoId(2L).amount(1).price(5.99).name("Vegeta").category("Anime").build()
+                ))
+                .totalItems(3)
+                .total(31.97)
+                .createdAt(now)
+                .updatedAt(now)
+                .address(address)
+                .build();
+    }
+
+    private Address address(String street) {
+        return Address.builder()
+                .street(street)
+                .numer("1")
+                .city("Madrid")
+                .province("Madrid")
+                .country("España")
+                .postalCode("28001")
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.orders.service;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.models.CompactOrder;
+import com.example.orders.models.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest(properties = {"orders.archive.max-age=30d", "orders.archive.batch-size=2"})
+@Import({OrderArchiveServiceImpl.class, CompactOrderServiceImpl.class})
+class OrderArchiveServiceImplTest extends MongoContainerTest {
+
+    @Autowired
+    private OrderArchiveService service;
+
+    @Autowired
+    private CompactOrderService compactOrders;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), Order.class);
+        mongoTemplate.remove(new Query(), CompactOrder.class);
+        mongoTemplate.dropCollection(OrderArchiveServiceImpl.COLLECTION);
+    }
+
+    @Test
+    void archiveMovesDeletedAndOldOrdersInBatches() {
+        // Arrange
+        Order recent = mongoTemplate.insert(order(now.minusDays(1), false));
+        Order deleted = mongoTemplate.insert(order(now.minusDays(1), true));
+        List<Order> old = List.of(
+                mongoTemplate.insert(order(now.minusDays(40), false)),
+                mongoTemplate.insert(order(now.minusDays(50), false)),
+                mongoTemplate.insert(order(now.minusDays(60), false))
+        );
+
+        // Act
+        long archived = service.archive();
+
+        // Assert
+        List<Order> hot = mongoTemplate.findAll(Order.class);
+        assertAll(
+                () -> assertEquals(4, archived),
+                () -> assertEquals(1, hot.size()),
+                () -> assertEquals(recent.getId(), hot.get(0).getId()),
+                () -> assertTrue(service.findArchived(deleted.getId()).isPresent()),
+                () -> assertEquals(old.get(2).getTotal(), service.findArchived(old.get(2).getId()).orElseThrow().getTotal()),
+                () -> assertTrue(service.findArchived(recent.getId()).isEmpty())
+        );
+    }
+
+    @Test
+    void archiveFinishesAnInterruptedRun() {
+        // Arrange: el pedido ya se copió al archivo pero no se llegó a borrar de orders
+        Order order = mongoTemplate.insert(order(now.minusDays(40), false));
+        service.archive();
+        mongoTemplate.insert(order);
+
+        // Act
+        long archived = service.archive();
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, archived),
+                () -> assertEquals(0, mongoTemplate.count(new Query(), Order.class)),
+                () -> assertEquals(1, mongoTemplate.count(new Query(), OrderArchiveServiceImpl.COLLECTION))
+        );
+    }
+
+    @Test
+    void archivedOrdersAreRemovedFromTheCompactForm() {
+        // Arrange
+        Order recent = mongoTemplate.insert(order(now.minusDays(1), false));
+        Order old = mongoTemplate.insert(order(now.minusDays(40), false));
+        compactOrders.saveAll(List.of(recent, old));
+
+        // Act
+        service.archive();
+
+        // Assert
+        assertAll(
+                () -> assertTrue(compactOrders.findById(recent.getId()).isPresent()),
+                () -> assertTrue(compactOrders.findById(old.getId()).isEmpty())
+        );
+    }
+
+    private Order order(LocalDateTime createdAt, boolean deleted) {
+        Order order = new Order();
+        order.setUserId(1L);
+        order.setOrderLines(List.of());
+        order.setTotalItems(1);
+        order.setTotal(10.0);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(createdAt);
+        order.setIsDeleted(deleted);
+        return order;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.orders.service;
+
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.exceptions.IdempotencyKeyInUseException;
+import com.example.orders.exceptions.IdempotencyKeyReusedException;
+import com.example.orders.models.IdempotencyRecord;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceImplTest {
+
+    @Mock
+    private IdempotencyRecordRepository records;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private OrderService orders;
+
+    private OrderIdempotencyServiceImpl service;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderIdempotencyServiceImpl(records, mongoTemplate, orders, 100, Duration.ofMinutes(1), Duration.ofSeconds(30));
+        lenient().when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        order = new Order();
+        order.setUserId(1L);
+    }
+
+    @Test
+    void repeatedRequestReturnsTheOriginalOrder() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        when(orders.findById(order.getId())).thenReturn(order);
+
+        // Act
+        OrderIdempotencyService.Result first = service.execute("key", request(2), () -> {
+            executions.incrementAndGet();
+            return order;
+        });
+        OrderIdempotencyService.Result second = service.execute("key", request(2), () -> {
+            executions.incrementAndGet();
+            return new Order();
+        });
+
+        // Assert
+        assertAll(
+                () -> assertEquals(1, executions.get()),
+                () -> assertFalse(first.replayed()),
+                () -> assertTrue(second.replayed()),
+                () -> assertEquals(order.getId(), second.order().getId())
+        );
+    }
+
+    @Test
+    void sameKeyWithAnotherOrderIsRejected() {
+        // Arrange
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        service.execute("key", request(2), () -> order);
+
+        // Act & Assert
+        assertThrows(
+                IdempotencyKeyReusedException.class,
+                () -> service.execute("key", request(3), () -> order)
+        );
+    }
+
+    @Test
+    void keyStoredByAnotherNodeIsReplayedFromMongo() {
+        // Arrange
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        service.execute("key", request(2), () -> order);
+        verify(records).insert(stored.capture());
+        String fingerprint = stored.getValue().getFingerprint();
+        // Otro servicio, como si fuera otro nodo o después de reiniciar
+        OrderIdempotencyServiceImpl otherNode = new OrderIdempotencyServiceImpl(records, mongoTemplate, orders, 100, Duration.ofMinutes(1), Duration.ofSeconds(30));
+        when(records.findById("1:key")).thenReturn(Optional.of(new IdempotencyRecord("1:key", fingerprint, order.getId(), null, null, null)));
+        when(orders.findById(order.getId())).thenReturn(order);
+
+        // Act
+        OrderIdempotencyService.Result result = otherNode.execute("key", request(2), () -> fail("No se debe repetir"));
+
+        // Assert
+        assertTrue(result.replayed());
+    }
+
+    @Test
+    void keyClaimedByAnotherNodeIsInUse() {
+        // Arrange
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        when(records.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("duplicada"));
+
+        // Act & Assert
+        assertThrows(
+                IdempotencyKeyInUseException.class,
+                () -> service.execute("key", request(2), () -> order)
+        );
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void failedRequestCanBeRetried() {
+        // Arrange
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+
+        // Act
+        assertThrows(
+                IllegalStateException.class,
+                () -> service.execute("key", request(2), () -> {
+                    throw new IllegalStateException("sin stock");
+                })
+        );
+        OrderIdempotencyService.Result retry = service.execute("key", request(2), () -> order);
+
+        // Assert
+        assertFalse(retry.replayed());
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void concurrentDuplicatesExecuteOnce() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        when(orders.findById(order.getId())).thenReturn(order);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<OrderIdempotencyService.Result>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> service.execute("key", request(2), () -> {
+                executions.incrementAndGet();
+                try {
+                    release.await(); // El original tarda, los duplicados llegan mientras tanto
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return order;
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        int replayed = 0;
+        for (Future<OrderIdempotencyService.Result> result : results) {
+            if (result.get().replayed()) replayed++;
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(7, replayed);
+    }
+
+    @Test
+    void keyRecordedWithoutOrderIsStillInUseWhileTheClaimIsFresh() {
+        // Arrange: otro nodo acaba de reservar la clave
+        when(records.findById("1:key")).thenReturn(Optional.of(claimed(new Date())));
+
+        // Act & Assert
+        assertThrows(
+                IdempotencyKeyInUseException.class,
+                () -> service.execute("key", request(2), () -> fail("No se debe ejecutar"))
+        );
+    }
+
+    @Test
+    void staleClaimIsTakenOver() {
+        // Arrange: el nodo que reservó la clave dejó de renovarla hace un minuto
+        when(records.findById("1:key")).thenReturn(Optional.of(claimed(new Date(System.currentTimeMillis() - 60_000))));
+
+        // Act
+        OrderIdempotencyService.Result result = service.execute("key", request(2), () -> order);
+
+        // Assert
+        assertFalse(result.replayed());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void staleClaimTakenOverByAnotherRequestIsInUse() {
+        // Arrange: otra petición se ha quedado antes con la reserva caducada
+        when(records.findById("1:key")).thenReturn(Optional.of(claimed(new Date(System.currentTimeMillis() - 60_000))));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // Act & Assert
+        assertThrows(
+                IdempotencyKeyInUseException.class,
+                () -> service.execute("key", request(2), () -> fail("No se debe ejecutar"))
+        );
+    }
+
+    @Test
+    void failedRecordIsRetriedUntilItIsSaved() {
+        // Arrange: la reserva se renueva cada 10 ms y la primera vez no se puede apuntar el pedido
+        service = new OrderIdempotencyServiceImpl(records, mongoTemplate, orders, 100, Duration.ofMinutes(1), Duration.ofMillis(30));
+        when(records.findById("1:key")).thenReturn(Optional.empty());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenThrow(new IllegalStateException("Mongo caído"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        OrderIdempotencyService.Result result = service.execute("key", request(2), () -> order);
+
+        // Assert
+        assertFalse(result.replayed());
+        verify(mongoTemplate, timeout(1000).times(2)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    // Una clave reservada por otro nodo para la misma petición, todavía sin pedido
+    private IdempotencyRecord claimed(Date claimedAt) {
+        return new IdempotencyRecord("1:key", service.fingerprint(request(2)), null, claimedAt, "token", claimedAt);
+    }
+
+    private InputOrder request(int amount) {
+        return InputOrder.builder()
+                .userId(1L)
+                .orderLines(List.of(OrderLine.builder().funkoId(1L).amount(amount).build()))
+                .build();
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.orders.service;
+
+import com.example.cache.negative.NegativeLookupCache;
+import com.example.funko.category.model.Category;
+import com.example.funko.funko.model.Funko;
+import com.example.funko.funko.services.FunkoService;
+import com.example.funko.funko.services.StockReservation;
+import com.example.funko.websocket.config.WebSocketHandler;
+import com.example.orders.dto.input.InputOrder;
+import com.example.orders.exceptions.OrderIntakeRejectedException;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.repository.OrderRepository;
+import com.example.users.services.UserService;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeServiceImplTest {
+
+    @Mock
+    private OrderRepository repository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private BulkOperations bulk;
+
+    @Mock
+    private FunkoService funkoService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SalesRollupService salesRollups;
+
+    @Mock
+    private NegativeLookupCache negativeLookups;
+
+    @Mock
+    private WebSocketHandler webSocketHandler;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private OrderIntakeServiceImpl service;
+    private Funko funko;
+
+    @BeforeEach
+    void setUp() {
+        when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        // Sin llamar a start(), los lotes se procesan a mano
+        service = new OrderIntakeServiceImpl(
+                repository, mongoTemplate, funkoService, userService, salesRollups, negativeLookups,
+                webSocketHandler, meterRegistry, 1, 50, Duration.ofMillis(20), Duration.ofSeconds(5)
+        );
+        funko = new Funko();
+        funko.setId(1L);
+        funko.setPrice(10.0);
+        funko.setName("Goku");
+        funko.setCategory(Category.builder().name("Anime").build());
+    }
+
+    @Test
+    void processBatchInsertsTheReservedOrdersTogether() {
+        // Arrange
+        OrderIntake accepted = new OrderIntake(order(2));
+        OrderIntake rejected = new OrderIntake(order(100));
+        when(funkoService.reserveStockForEach(List.of(Map.of(1L, 2), Map.of(1L, 100)))).thenReturn(List.of(
+                StockReservation.reserved(Map.of(1L, funko)),
+                StockReservation.rejected("No hay suficientes funkos con id: 1")
+        ));
+
+        // Act
+        service.processBatch(List.of(accepted, rejected));
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Order>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        assertAll(
+                () -> assertEquals(OrderIntake.Status.COMPLETED, accepted.getStatus()),
+                () -> assertEquals(OrderIntake.Status.REJECTED, rejected.getStatus()),
+                () -> assertEquals(1, inserted.getValue().size()),
+                () -> assertEquals(accepted.getId(), inserted.getValue().get(0).getId()),
+                () -> assertEquals(20.0, inserted.getValue().get(0).getTotal())
+        );
+        verify(salesRollups).recordOrder(inserted.getValue().get(0));
+    }
+
+    @Test
+    void processBatchSnapshotsTheFunkoInEachLine() {
+        // Arrange
+        OrderIntake intake = new OrderIntake(order(2));
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(StockReservation.reserved(Map.of(1L, funko))));
+
+        // Act
+        service.processBatch(List.of(intake));
+        funko.setPrice(99.0); // Cambiar el Funko después no cambia el pedido
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Order>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        OrderLine line = inserted.getValue().get(0).getOrderLines().get(0);
+        assertAll(
+                () -> assertEquals(10.0, line.getPrice()),
+                () -> assertEquals("Goku", line.getName()),
+                () -> assertEquals("Anime", line.getCategory())
+        );
+    }
+
+    @Test
+    void processBatchReleasesTheStockIfMongoFails() {
+        // Arrange
+        OrderIntake first = new OrderIntake(order(2));
+        OrderIntake second = new OrderIntake(order(3));
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(
+                StockReservation.reserved(Map.of(1L, funko)),
+                StockReservation.reserved(Map.of(1L, funko))
+        ));
+        when(bulk.execute()).thenThrow(new IllegalStateException("Mongo caído"));
+        when(repository.findAllById(anyList())).thenReturn(List.of()); // No se ha llegado a guardar ninguno
+
+        // Act
+        service.processBatch(List.of(first, second));
+
+        // Assert
+        verify(funkoService).releaseStock(Map.of(1L, 5));
+        assertEquals(OrderIntake.Status.FAILED, first.getStatus());
+        assertEquals(OrderIntake.Status.FAILED, second.getStatus());
+        verifyNoInteractions(salesRollups);
+    }
+
+    @Test
+    void processBatchOnlyReleasesTheOrdersThatWereNotInserted() {
+        // Arrange: el segundo pedido del insert falla y el primero se guarda
+        OrderIntake first = new OrderIntake(order(2));
+        OrderIntake second = new OrderIntake(order(3));
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(
+                StockReservation.reserved(Map.of(1L, funko)),
+                StockReservation.reserved(Map.of(1L, funko))
+        ));
+        BulkOperationException error = mock(BulkOperationException.class);
+        when(error.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "Clave duplicada", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(error);
+
+        // Act
+        service.processBatch(List.of(first, second));
+
+        // Assert
+        verify(funkoService).releaseStock(Map.of(1L, 3));
+        assertEquals(OrderIntake.Status.COMPLETED, first.getStatus());
+        assertEquals(OrderIntake.Status.FAILED, second.getStatus());
+        verify(salesRollups, times(1)).recordOrder(any());
+    }
+
+    @Test
+    void processBatchReleasesTheStockIfBuildingAnOrderFails() {
+        // Arrange: la reserva no trae el funko, así que no se puede montar el pedido
+        OrderIntake intake = new OrderIntake(order(2));
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(StockReservation.reserved(Map.of())));
+
+        // Act
+        service.processBatch(List.of(intake));
+
+        // Assert
+        verify(funkoService).releaseStock(Map.of(1L, 2));
+        assertEquals(OrderIntake.Status.FAILED, intake.getStatus());
+        verifyNoInteractions(bulk);
+    }
+
+    @Test
+    void finishOnlyNotifiesTheOrderId() throws Exception {
+        // Arrange
+        OrderIntake intake = new OrderIntake(order(2));
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(StockReservation.reserved(Map.of(1L, funko))));
+
+        // Act
+        service.processBatch(List.of(intake));
+
+        // Assert: el WebSocket llega a todos los clientes, no puede llevar los datos del pedido
+        verify(webSocketHandler, timeout(1000)).sendMessage(eq("{\"id\":\"" + intake.getId().toHexString() + "\"}"));
+    }
+
+    @Test
+    void submitWhenTheQueueIsFull() {
+        // Arrange: la cola tiene capacidad 1
+        service.submit(order(1));
+
+        // Act & Assert
+        assertThrows(OrderIntakeRejectedException.class, () -> service.submit(order(1)));
+    }
+
+    @Test
+    void stopProcessesTheQueuedOrdersBeforeExiting() {
+        // Arrange
+        when(funkoService.reserveStockForEach(anyList())).thenReturn(List.of(StockReservation.reserved(Map.of(1L, funko))));
+        service.start();
+        OrderIntake intake = service.submit(order(2));
+
+        // Act
+        service.stop();
+
+        // Assert
+        assertEquals(OrderIntake.Status.COMPLETED, intake.getStatus());
+    }
+
+    @Test
+    void stopFailsAndNotifiesTheOrdersLeftInTheQueue() throws Exception {
+        // Arrange: sin start() nadie vacía la cola
+        OrderIntake intake = service.submit(order(2));
+
+        // Act
+        service.stop();
+
+        // Assert
+        assertEquals(OrderIntake.Status.FAILED, intake.getStatus());
+        verify(webSocketHandler).sendMessage(eq("{\"id\":\"" + intake.getId().toHexString() + "\"}"));
+    }
+
+    @Test
+    void submitAfterStopIsRejected() {
+        // Arrange
+        service.stop();
+
+        // Act & Assert
+        assertThrows(OrderIntakeRejectedException.class, () -> service.submit(order(1)));
+    }
+
+    private InputOrder order(int amount) {
+        return InputOrder.builder()
+                .userId(1L)
+                .orderLines(List.of(OrderLine.builder().funkoId(1L).amount(amount).build()))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.orders.service;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.models.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+class OrderServiceImplTest extends MongoContainerTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), Order.class);
+    }
+
+    @Test
+    void filterQueryLeavesOutDeletedOrders() {
+        // Arrange: el borrado sigue en orders hasta que se archiva
+        Order kept = mongoTemplate.insert(order(false));
+        mongoTemplate.insert(order(true));
+
+        // Act: el mismo filtro del listado y de la exportación
+        List<Order> found = mongoTemplate.find(
+                OrderServiceImpl.filterQuery(Optional.of(1L), Optional.empty(), Optional.empty()), Order.class
+        );
+
+        // Assert
+        assertEquals(1, found.size());
+        assertEquals(kept.getId(), found.get(0).getId());
+    }
+
+    private Order order(boolean deleted) {
+        Order order = new Order();
+        order.setUserId(1L);
+        order.setOrderLines(List.of());
+        order.setTotalItems(1);
+        order.setTotal(10.0);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setIsDeleted(deleted);
+        return order;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.orders.service;
+
+import com.example.orders.MongoContainerTest;
+import com.example.orders.config.OrderIndexConfig;
+import com.example.orders.models.FunkoDailySales;
+import com.example.orders.models.Order;
+import com.example.orders.models.OrderLine;
+import com.example.orders.models.UserMonthlySales;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Import({SalesRollupServiceImpl.class, OrderIndexConfig.class})
+class SalesRollupServiceImplTest extends MongoContainerTest {
+
+    @Autowired
+    private SalesRollupService service;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final LocalDate day = LocalDate.of(2024, 3, 10);
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), FunkoDailySales.class);
+        mongoTemplate.remove(new Query(), UserMonthlySales.class);
+        mongoTemplate.remove(new Query(), Order.class);
+    }
+
+    @Test
+    void recordOrderAccumulatesPerFunkoAndDay() {
+        // Act
+        service.recordOrder(order(day, line(1L, 2, 10.0), line(2L, 1, 5.0), line(1L, 1, 10.0)));
+        service.recordOrder(order(day, line(1L, 1, 10.0)));
+
+        // Assert
+        List<FunkoDailySales> sales = service.findFunkoDailySales(1L, day, day);
+        assertAll(
+                () -> assertEquals(1, sales.size()),
+                () -> assertEquals(4, sales.get(0).getUnits()),
+                () -> assertEquals(40.0, sales.get(0).getRevenue()),
+                () -> assertEquals(2, sales.get(0).getOrders())
+        );
+    }
+
+    @Test
+    void revertOrderSubtractsIt() {
+        // Arrange
+        Order first = order(day, line(1L, 2, 10.0));
+        Order second = order(day.plusDays(40), line(1L, 3, 10.0));
+        service.recordOrder(first);
+        service.recordOrder(second);
+
+        // Act
+        service.revertOrder(first);
+
+        // Assert
+        List<UserMonthlySales> march = service.findUserMonthlySales(7L, YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+        List<UserMonthlySales> all = service.findUserMonthlySales(7L, YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        assertAll(
+                () -> assertEquals(0, march.get(0).getUnits()),
+                () -> assertEquals(0, march.get(0).getOrders()),
+                () -> assertEquals(2, all.size()),
+                () -> assertEquals(3, all.get(1).getUnits()),
+                () -> assertEquals(30.0, all.get(1).getRevenue())
+        );
+    }
+
+    @Test
+    void revertOfAnOrderThatWasNeverRecordedDoesNotGoNegative() {
+        // Arrange: un pedido anterior a los acumulados
+        Order old = order(day, line(1L, 2, 10.0));
+
+        // Act
+        service.revertOrder(old);
+
+        // Assert
+        assertAll(
+                () -> assertTrue(service.findFunkoDailySales(1L, day, day).isEmpty()),
+                () -> assertTrue(service.findUserMonthlySales(7L, YearMonth.of(2024, 3), YearMonth.of(2024, 3)).isEmpty())
+        );
+    }
+
+    @Test
+    void funkoAndUserRevenueAreKeptInCentsAndAgree() {
+        // Act
+        service.recordOrder(order(day, line(1L, 3, 0.1), line(2L, 1, 0.2)));
+
+        // Assert
+        List<FunkoDailySales> funko1 = service.findFunkoDailySales(1L, day, day);
+        List<FunkoDailySales> funko2 = service.findFunkoDailySales(2L, day, day);
+        List<UserMonthlySales> user = service.findUserMonthlySales(7L, YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+        assertAll(
+                () -> assertEquals(30, funko1.get(0).getRevenueCents()),
+                () -> assertEquals(20, funko2.get(0).getRevenueCents()),
+                () -> assertEquals(50, user.get(0).getRevenueCents())
+        );
+    }
+
+    @Test
+    void rebuildRecomputesFromTheOrders() {
+        // Arrange
+        Order first = mongoTemplate.insert(order(day, line(1L, 2, 10.0), line(1L, 1, 10.0)));
+        Order second = mongoTemplate.insert(order(day, line(1L, 1, 10.0), line(2L, 1, 5.0)));
+        Order deleted = order(day, line(1L, 5, 10.0));
+        deleted.setIsDeleted(true);
+        mongoTemplate.insert(deleted);
+        service.recordOrder(first); // El segundo no se sumó
+        service.revertOrder(first);
+        service.revertOrder(first); // Ni se restó dos veces
+
+        // Act
+        service.rebuild();
+
+        // Assert
+        List<FunkoDailySales> funko1 = service.findFunkoDailySales(1L, day, day);
+        List<UserMonthlySales> user = service.findUserMonthlySales(7L, YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+        assertAll(
+                () -> assertEquals(4, funko1.get(0).getUnits()),
+                () -> assertEquals(4000, funko1.get(0).getRevenueCents()),
+                () -> assertEquals(2, funko1.get(0).getOrders()),
+                () -> assertEquals(5, user.get(0).getUnits()),
+                () -> assertEquals(4500, user.get(0).getRevenueCents()),
+                () -> assertEquals(2, user.get(0).getOrders())
+        );
+    }
+
+    private Order order(LocalDate date, OrderLine... lines) {
+        Order order = new Order();
+        order.setUserId(7L);
+        order.setOrderLines(List.of(lines));
+        order.setCreatedAt(date.atStartOfDay());
+        order.setTotalItems(List.of(lines).stream().mapToInt(OrderLine::getAmount).sum());
+        order.setTotal(List.of(lines).stream().mapToDouble(line -> line.getAmount() * line.getPrice()).sum());
+        return order;
+    }
+
+    private OrderLine line(Long funkoId, int amount, double price) {
+        return OrderLine.builder().funkoId(funkoId).amount(amount).price(price).build();
+    }
+}